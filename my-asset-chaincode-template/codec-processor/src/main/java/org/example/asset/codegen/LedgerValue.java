@@ -0,0 +1,33 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.example.asset.codegen;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a ledger value class for which {@link LedgerValueProcessor} generates
+ * a {@code <Type>BinaryFormat} at build time.
+ *
+ * Every instance field is encoded in declaration order, read through its
+ * getter and restored through the no-argument constructor and its setter.
+ * Supported field types are String, int, long and boolean.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface LedgerValue {
+
+    /**
+     * Stores a String field as a one byte index into the listed values,
+     * falling back to the full string for anything else.
+     */
+    @Retention(RetentionPolicy.SOURCE)
+    @Target(ElementType.FIELD)
+    @interface Enumerated {
+        String[] value();
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.example.asset.codegen;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates reflection-free {@code BinaryFormat} implementations for classes
+ * annotated with {@link LedgerValue}.
+ *
+ * The generated class lives next to the annotated type and relies on the
+ * chaincode's own BinaryWriter, BinaryReader and JsonListWriter, so the wire
+ * format stays defined in one place.
+ */
+@SupportedAnnotationTypes("org.example.asset.codegen.LedgerValue")
+public final class LedgerValueProcessor extends AbstractProcessor {
+
+    private enum FieldKind {
+        STRING("String"),
+        INT("Int"),
+        LONG("Long"),
+        BOOLEAN("Boolean");
+
+        private final String codecSuffix;
+
+        FieldKind(final String codecSuffix) {
+            this.codecSuffix = codecSuffix;
+        }
+    }
+
+    private static final class Field {
+        private final String name;
+        private final FieldKind kind;
+        private final String getter;
+        private final String setter;
+        private final String[] enumerated;
+
+        Field(final String name, final FieldKind kind, final String getter, final String setter,
+                final String[] enumerated) {
+            this.name = name;
+            this.kind = kind;
+            this.getter = getter;
+            this.setter = setter;
+            this.enumerated = enumerated;
+        }
+
+        String constantName() {
+            return name.replaceAll("([a-z])([A-Z])", "$1_$2").toUpperCase(Locale.ROOT) + "_VALUES";
+        }
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(LedgerValue.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@LedgerValue only applies to classes");
+                continue;
+            }
+            TypeElement type = (TypeElement) element;
+            List<Field> fields = collectFields(type);
+            if (fields == null) {
+                continue;
+            }
+            try {
+                writeFormat(type, fields);
+            } catch (IOException e) {
+                error(type, "Could not write binary format: " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    private List<Field> collectFields(final TypeElement type) {
+        Set<String> methods = new HashSet<>();
+        boolean noArgConstructor = false;
+        for (Element member : type.getEnclosedElements()) {
+            if (member.getKind() == ElementKind.METHOD && member.getModifiers().contains(Modifier.PUBLIC)) {
+                methods.add(member.getSimpleName() + "/" + ((ExecutableElement) member).getParameters().size());
+            } else if (member.getKind() == ElementKind.CONSTRUCTOR
+                    && ((ExecutableElement) member).getParameters().isEmpty()
+                    && !member.getModifiers().contains(Modifier.PRIVATE)) {
+                noArgConstructor = true;
+            }
+        }
+        if (!noArgConstructor) {
+            error(type, "@LedgerValue classes need a no-argument constructor");
+            return null;
+        }
+
+        List<Field> fields = new ArrayList<>();
+        boolean valid = true;
+        for (Element member : type.getEnclosedElements()) {
+            if (member.getKind() != ElementKind.FIELD
+                    || member.getModifiers().contains(Modifier.STATIC)
+                    || member.getModifiers().contains(Modifier.TRANSIENT)) {
+                continue;
+            }
+            VariableElement variable = (VariableElement) member;
+            String name = variable.getSimpleName().toString();
+            FieldKind kind = kindOf(variable);
+            if (kind == null) {
+                error(variable, "Unsupported field type for @LedgerValue: " + variable.asType());
+                valid = false;
+                continue;
+            }
+
+            String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+            String getter = (kind == FieldKind.BOOLEAN ? "is" : "get") + capitalized;
+            String setter = "set" + capitalized;
+            if (!methods.contains(getter + "/0") || !methods.contains(setter + "/1")) {
+                error(variable, "Field " + name + " needs a public " + getter + "() and " + setter + "(..)");
+                valid = false;
+                continue;
+            }
+
+            LedgerValue.Enumerated enumerated = variable.getAnnotation(LedgerValue.Enumerated.class);
+            if (enumerated != null && kind != FieldKind.STRING) {
+                error(variable, "@Enumerated only applies to String fields");
+                valid = false;
+                continue;
+            }
+            fields.add(new Field(name, kind, getter, setter, enumerated == null ? null : enumerated.value()));
+        }
+        return valid ? fields : null;
+    }
+
+    private static FieldKind kindOf(final VariableElement variable) {
+        TypeKind kind = variable.asType().getKind();
+        switch (kind) {
+            case INT:
+                return FieldKind.INT;
+            case LONG:
+                return FieldKind.LONG;
+            case BOOLEAN:
+                return FieldKind.BOOLEAN;
+            case DECLARED:
+                return "java.lang.String".equals(variable.asType().toString()) ? FieldKind.STRING : null;
+            default:
+                return null;
+        }
+    }
+
+    private void writeFormat(final TypeElement type, final List<Field> fields) throws IOException {
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String typeName = type.getSimpleName().toString();
+        String formatName = typeName + "BinaryFormat";
+
+        StringBuilder src = new StringBuilder();
+        src.append("/*\n * Generated by ").append(LedgerValueProcessor.class.getName()).append(" - do not edit.\n */\n\n");
+        if (!packageName.isEmpty()) {
+            src.append("package ").append(packageName).append(";\n\n");
+        }
+        src.append("import javax.annotation.processing.Generated;\n\n");
+        src.append("/**\n * Binary layout of {@link ").append(typeName).append("}: ");
+        for (int i = 0; i < fields.size(); i++) {
+            src.append(i == 0 ? "" : ", ").append(fields.get(i).name);
+        }
+        src.append(".\n */\n");
+        src.append("@Generated(\"").append(LedgerValueProcessor.class.getName()).append("\")\n");
+        src.append("final class ").append(formatName).append(" implements BinaryFormat<").append(typeName).append("> {\n");
+
+        for (Field field : fields) {
+            if (field.enumerated != null) {
+                src.append("\n    private static final String[] ").append(field.constantName()).append(" = {");
+                for (int i = 0; i < field.enumerated.length; i++) {
+                    src.append(i == 0 ? "" : ", ").append(quote(field.enumerated[i]));
+                }
+                src.append("};\n");
+            }
+        }
+
+        src.append("\n    @Override\n    public void write(final ").append(typeName)
+                .append(" value, final BinaryWriter out) {\n");
+        for (Field field : fields) {
+            if (field.enumerated != null) {
+                src.append("        out.writeEnumerated(value.").append(field.getter).append("(), ")
+                        .append(field.constantName()).append(");\n");
+            } else {
+                src.append("        out.write").append(field.kind.codecSuffix).append("(value.")
+                        .append(field.getter).append("());\n");
+            }
+        }
+        src.append("    }\n");
+
+        src.append("\n    @Override\n    public ").append(typeName).append(" read(final BinaryReader in) {\n");
+        src.append("        ").append(typeName).append(" value = new ").append(typeName).append("();\n");
+        for (Field field : fields) {
+            src.append("        value.").append(field.setter).append("(").append(readCall(field)).append(");\n");
+        }
+        src.append("        return value;\n    }\n");
+
+        src.append("\n    @Override\n    public void writeJson(final BinaryReader in, final JsonListWriter out) {\n");
+        src.append("        out.beginObject();\n");
+        for (Field field : fields) {
+            src.append("        out.field(").append(quote(field.name)).append(", ").append(readCall(field)).append(");\n");
+        }
+        src.append("        out.endObject();\n    }\n}\n");
+
+        String qualifiedName = packageName.isEmpty() ? formatName : packageName + "." + formatName;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter()) {
+            writer.write(src.toString());
+        }
+    }
+
+    private static String readCall(final Field field) {
+        if (field.enumerated != null) {
+            return "in.readEnumerated(" + field.constantName() + ")";
+        }
+        return "in.read" + field.kind.codecSuffix + "()";
+    }
+
+    private static String quote(final String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20 || c > 0x7E) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    private void error(final Element element, final String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
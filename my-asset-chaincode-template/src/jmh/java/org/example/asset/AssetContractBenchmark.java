@@ -0,0 +1,142 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.example.asset;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of each AssetContract transaction inside the chaincode JVM, against
+ * an in-memory ledger of {@code ledgerSize} assets whose descriptions are
+ * {@code valueSize} characters long. Submitted functions are validated and
+ * committed, so their cost includes the ledger's own bookkeeping.
+ *
+ * QueryAssets needs CouchDB and MigrateLegacyAssets a legacy ledger, so
+ * neither is covered here.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class AssetContractBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"1000", "100000", "1000000"})
+    public int ledgerSize;
+
+    @Param({"32", "1024"})
+    public int valueSize;
+
+    private final AssetContract contract = new AssetContract();
+    private InMemoryLedger ledger;
+    private String description;
+    private long created;
+
+    @Setup(Level.Trial)
+    public void seed() {
+        ledger = BenchmarkLedgers.assets(contract, ledgerSize, valueSize);
+        description = BenchmarkLedgers.text(valueSize);
+    }
+
+    private int randomAsset() {
+        return ThreadLocalRandom.current().nextInt(ledgerSize);
+    }
+
+    @Benchmark
+    public Object initLedger() {
+        return ledger.submit(contract, "InitLedger", ctx -> {
+            contract.InitLedger(ctx);
+            return null;
+        });
+    }
+
+    @Benchmark
+    public Asset publishAsset() {
+        String assetID = "bench-" + created++;
+        return ledger.submit(contract, "PublishAsset",
+                ctx -> contract.PublishAsset(ctx, assetID, "Benchmark asset", description, "Org1", 100));
+    }
+
+    @Benchmark
+    public Asset readAsset() {
+        String assetID = BenchmarkLedgers.assetID(randomAsset());
+        return ledger.evaluate(contract, "ReadAsset", ctx -> contract.ReadAsset(ctx, assetID));
+    }
+
+    @Benchmark
+    public boolean assetExists() {
+        String assetID = BenchmarkLedgers.assetID(randomAsset());
+        return ledger.evaluate(contract, "AssetExists", ctx -> contract.AssetExists(ctx, assetID));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public String getAllAssets() {
+        return ledger.evaluate(contract, "GetAllAssets", contract::GetAllAssets);
+    }
+
+    @Benchmark
+    public String getAllAssetsWithPagination() {
+        return ledger.evaluate(contract, "GetAllAssetsWithPagination",
+                ctx -> contract.GetAllAssetsWithPagination(ctx, PAGE_SIZE, ""));
+    }
+
+    @Benchmark
+    public String getAssetsByOwner() {
+        String owner = BenchmarkLedgers.owner(randomAsset());
+        return ledger.evaluate(contract, "GetAssetsByOwner",
+                ctx -> contract.GetAssetsByOwner(ctx, owner, PAGE_SIZE, ""));
+    }
+
+    @Benchmark
+    public long getOwnerTotal() {
+        String owner = BenchmarkLedgers.owner(randomAsset());
+        return ledger.evaluate(contract, "GetOwnerTotal", ctx -> contract.GetOwnerTotal(ctx, owner));
+    }
+
+    @Benchmark
+    public long compactOwnerTotals() {
+        String owner = BenchmarkLedgers.owner(randomAsset());
+        return ledger.submit(contract, "CompactOwnerTotals", ctx -> contract.CompactOwnerTotals(ctx, owner));
+    }
+
+    @Benchmark
+    public Asset updateAsset() {
+        int index = randomAsset();
+        String assetID = BenchmarkLedgers.assetID(index);
+        String owner = BenchmarkLedgers.owner(index);
+        int value = ThreadLocalRandom.current().nextInt(10_000);
+        return ledger.submit(contract, "UpdateAsset",
+                ctx -> contract.UpdateAsset(ctx, assetID, "Asset " + assetID, description, owner, value));
+    }
+
+    /**
+     * DeleteAsset followed by the PublishAsset that restores the asset, so
+     * the ledger keeps its size; halve the score for one transaction.
+     */
+    @Benchmark
+    public Asset deleteAndRepublishAsset() {
+        int index = randomAsset();
+        String assetID = BenchmarkLedgers.assetID(index);
+        String owner = BenchmarkLedgers.owner(index);
+        ledger.submit(contract, "DeleteAsset", ctx -> {
+            contract.DeleteAsset(ctx, assetID);
+            return null;
+        });
+        return ledger.submit(contract, "PublishAsset",
+                ctx -> contract.PublishAsset(ctx, assetID, "Asset " + assetID, description, owner, index % 10_000));
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.example.asset;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+
+/**
+ * Builds the in-memory ledgers the benchmarks run against. The records are
+ * loaded straight into committed state with the contracts' own codecs and
+ * key layout, including indexes, tags, owner totals and Merkle trees, so a
+ * million-record ledger takes seconds to build; only the benchmarked
+ * operations go through contract transactions. Loaded keys have no history.
+ */
+final class BenchmarkLedgers {
+
+    /**
+     * Releases per package in a seeded release ledger.
+     */
+    static final int VERSIONS_PER_PACKAGE = 20;
+
+    /**
+     * Distinct owners in a seeded asset ledger.
+     */
+    static final int OWNERS = 100;
+
+    /**
+     * Publisher of the seeded releases, the ledger's default client.
+     */
+    static final String PUBLISHER = "Org1MSP";
+
+    private static final byte[] INDEX_VALUE = {0x00};
+
+    private BenchmarkLedgers() {
+    }
+
+    /**
+     * A ledger holding {@code size} assets named asset-0..asset-(size - 1),
+     * spread evenly over {@link #OWNERS} owners, with compacted owner totals.
+     */
+    static InMemoryLedger assets(final AssetContract contract, final int size, final int valueSize) {
+        InMemoryLedger ledger = new InMemoryLedger();
+        String description = text(valueSize);
+        Map<String, Long> totals = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            String assetID = assetID(i);
+            String owner = owner(i);
+            int value = i % 10_000;
+            Asset asset = new Asset(assetID, "Asset " + assetID, description, owner, value);
+            ledger.load(key(AssetContract.ASSET_KEY_TYPE, assetID), contract.assetCodec.encode(asset));
+            ledger.load(key(AssetContract.OWNER_INDEX, owner, assetID), INDEX_VALUE);
+            totals.merge(owner, (long) value, Long::sum);
+        }
+        for (Map.Entry<String, Long> total : totals.entrySet()) {
+            BinaryWriter writer = BinaryWriter.reusable().header();
+            writer.writeLong(total.getValue());
+            ledger.load(key(AssetContract.OWNER_TOTAL_CHECKPOINT, total.getKey()), writer.toByteArray());
+        }
+        return ledger;
+    }
+
+    /**
+     * A ledger holding {@code size} releases, {@link #VERSIONS_PER_PACKAGE}
+     * versions 1.0.0..1.19.0 of each package pkg-0..pkg-n, as if published
+     * in version order by {@link #PUBLISHER}.
+     */
+    static InMemoryLedger releases(final SoftwareReleaseContract contract, final int size, final int valueSize) {
+        InMemoryLedger ledger = new InMemoryLedger();
+        for (int first = 0; first < size; first += VERSIONS_PER_PACKAGE) {
+            String packageId = packageId(first / VERSIONS_PER_PACKAGE);
+            List<byte[]> leaves = new ArrayList<>(VERSIONS_PER_PACKAGE);
+            byte[] latest = null;
+            for (int i = first; i < Math.min(size, first + VERSIONS_PER_PACKAGE); i++) {
+                String version = version(i % VERSIONS_PER_PACKAGE);
+                String fileHash = fileHash(i, valueSize);
+                SoftwareRelease release = new SoftwareRelease(packageId, version, fileHash, "ACTIVE", PUBLISHER);
+                latest = contract.releaseCodec.encode(release);
+                ledger.load(key(SoftwareReleaseContract.RELEASE_KEY_TYPE, packageId, SemverKey.encode(version)), latest);
+                ledger.load(key(SoftwareReleaseContract.PUBLISHER_INDEX, PUBLISHER, packageId, version), INDEX_VALUE);
+                ledger.load(key(SoftwareReleaseContract.HASH_INDEX, fileHash, packageId, version), INDEX_VALUE);
+
+                BinaryWriter position = BinaryWriter.reusable().header();
+                position.writeInt(leaves.size());
+                ledger.load(key(SoftwareReleaseContract.MERKLE_LEAF_INDEX, packageId, version), position.toByteArray());
+                leaves.add(MerkleTree.leaf(version, fileHash, "ACTIVE"));
+            }
+            ledger.load(key(SoftwareReleaseContract.DIST_TAG_KEY_TYPE, packageId, SoftwareReleaseContract.LATEST_TAG),
+                    latest);
+            loadTree(ledger, packageId, new MerkleTree(leaves));
+        }
+        return ledger;
+    }
+
+    private static void loadTree(final InMemoryLedger ledger, final String packageId, final MerkleTree tree) {
+        for (int depth = 0; depth < tree.height(); depth++) {
+            byte[][] level = tree.level(depth);
+            for (int index = 0; index < level.length; index++) {
+                ledger.load(key(SoftwareReleaseContract.MERKLE_NODE_KEY_TYPE, packageId,
+                        Integer.toString(depth), Integer.toString(index)), level[index]);
+            }
+        }
+        BinaryWriter root = BinaryWriter.reusable().header();
+        root.writeInt(tree.size());
+        root.writeString(MerkleTree.hex(tree.root()));
+        ledger.load(key(SoftwareReleaseContract.PACKAGE_ROOT_KEY_TYPE, packageId), root.toByteArray());
+    }
+
+    private static String key(final String objectType, final String... attributes) {
+        return new CompositeKey(objectType, attributes).toString();
+    }
+
+    static int packages(final int size) {
+        return Math.max(1, (size + VERSIONS_PER_PACKAGE - 1) / VERSIONS_PER_PACKAGE);
+    }
+
+    static String assetID(final int index) {
+        return "asset-" + index;
+    }
+
+    static String owner(final int index) {
+        return "Org" + (index % OWNERS);
+    }
+
+    static String packageId(final int index) {
+        return "com.example.pkg" + index;
+    }
+
+    static String version(final int index) {
+        return "1." + index + ".0";
+    }
+
+    /**
+     * A hex string of {@code length} characters unique to the release index.
+     */
+    static String fileHash(final int index, final int length) {
+        String unique = Integer.toHexString(index);
+        char[] hash = new char[Math.max(length, unique.length())];
+        Arrays.fill(hash, 'a');
+        unique.getChars(0, unique.length(), hash, hash.length - unique.length());
+        return new String(hash);
+    }
+
+    static String text(final int length) {
+        char[] text = new char[length];
+        for (int i = 0; i < length; i++) {
+            text[i] = (char) ('a' + i % 26);
+        }
+        return new String(text);
+    }
+}
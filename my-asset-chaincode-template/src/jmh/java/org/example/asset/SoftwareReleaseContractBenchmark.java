@@ -0,0 +1,195 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.example.asset;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of each SoftwareReleaseContract transaction inside the chaincode JVM,
+ * against an in-memory ledger of {@code ledgerSize} releases in packages of
+ * {@link BenchmarkLedgers#VERSIONS_PER_PACKAGE} versions, with file hashes
+ * {@code valueSize} characters long.
+ *
+ * The publish benchmarks add new versions to existing packages, so packages
+ * grow slowly over an iteration. Seeded packages have a committed Merkle tree,
+ * so CommitPackageRoot folds in whatever the setup queued and then mostly
+ * measures the scan for pending leaves. Seeded releases have no history, so
+ * GetReleaseHistory reads a sample of releases discontinued during setup.
+ * MigrateLegacyReleases needs a legacy ledger and is not covered here.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class SoftwareReleaseContractBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+    private static final int BATCH_SIZE = 10;
+    private static final int LOCKFILE_SIZE = 100;
+    private static final int HISTORY_SAMPLE = 100;
+
+    @Param({"1000", "100000", "1000000"})
+    public int ledgerSize;
+
+    @Param({"64", "1024"})
+    public int valueSize;
+
+    private final SoftwareReleaseContract contract = new SoftwareReleaseContract();
+    private InMemoryLedger ledger;
+    private String lockfile;
+    private long created;
+
+    @Setup(Level.Trial)
+    public void seed() {
+        ledger = BenchmarkLedgers.releases(contract, ledgerSize, valueSize);
+
+        StringBuilder manifest = new StringBuilder();
+        for (int i = 0; i < LOCKFILE_SIZE; i++) {
+            int release = randomRelease();
+            manifest.append(packageOf(release)).append(' ')
+                    .append(versionOf(release)).append(' ')
+                    .append(BenchmarkLedgers.fileHash(release, valueSize)).append('\n');
+        }
+        lockfile = manifest.toString();
+
+        for (int i = 0; i < Math.min(HISTORY_SAMPLE, ledgerSize); i++) {
+            int release = historyRelease(i);
+            ledger.submit(contract, "DiscontinueRelease",
+                    ctx -> contract.DiscontinueRelease(ctx, packageOf(release), versionOf(release)));
+        }
+    }
+
+    private int historyRelease(final int sample) {
+        return (int) ((long) sample * ledgerSize / Math.min(HISTORY_SAMPLE, ledgerSize));
+    }
+
+    private int randomRelease() {
+        return ThreadLocalRandom.current().nextInt(ledgerSize);
+    }
+
+    private String randomPackage() {
+        return BenchmarkLedgers.packageId(ThreadLocalRandom.current().nextInt(BenchmarkLedgers.packages(ledgerSize)));
+    }
+
+    private static String packageOf(final int release) {
+        return BenchmarkLedgers.packageId(release / BenchmarkLedgers.VERSIONS_PER_PACKAGE);
+    }
+
+    private static String versionOf(final int release) {
+        return BenchmarkLedgers.version(release % BenchmarkLedgers.VERSIONS_PER_PACKAGE);
+    }
+
+    private String newVersion() {
+        return "2.0." + created++;
+    }
+
+    @Benchmark
+    public SoftwareRelease publishRelease() {
+        String packageId = randomPackage();
+        String version = newVersion();
+        String fileHash = BenchmarkLedgers.fileHash((int) created, valueSize);
+        return ledger.submit(contract, "PublishRelease",
+                ctx -> contract.PublishRelease(ctx, packageId, version, fileHash));
+    }
+
+    @Benchmark
+    public String publishReleases() {
+        StringBuilder manifest = new StringBuilder();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            manifest.append(randomPackage()).append(' ').append(newVersion()).append(' ')
+                    .append(BenchmarkLedgers.fileHash((int) created, valueSize)).append('\n');
+        }
+        String batch = manifest.toString();
+        return ledger.submit(contract, "PublishReleases", ctx -> contract.PublishReleases(ctx, batch));
+    }
+
+    @Benchmark
+    public SoftwareRelease discontinueRelease() {
+        int release = randomRelease();
+        return ledger.submit(contract, "DiscontinueRelease",
+                ctx -> contract.DiscontinueRelease(ctx, packageOf(release), versionOf(release)));
+    }
+
+    @Benchmark
+    public SoftwareRelease resolveTag() {
+        String packageId = randomPackage();
+        return ledger.evaluate(contract, "ResolveTag",
+                ctx -> contract.ResolveTag(ctx, packageId, SoftwareReleaseContract.LATEST_TAG));
+    }
+
+    @Benchmark
+    public boolean validateRelease() {
+        int release = randomRelease();
+        String fileHash = BenchmarkLedgers.fileHash(release, valueSize);
+        return ledger.evaluate(contract, "ValidateRelease",
+                ctx -> contract.ValidateRelease(ctx, packageOf(release), versionOf(release), fileHash));
+    }
+
+    @Benchmark
+    public String verifyLockfile() {
+        return ledger.evaluate(contract, "VerifyLockfile", ctx -> contract.VerifyLockfile(ctx, lockfile));
+    }
+
+    @Benchmark
+    public SoftwareRelease getRelease() {
+        int release = randomRelease();
+        return ledger.evaluate(contract, "GetRelease",
+                ctx -> contract.GetRelease(ctx, packageOf(release), versionOf(release)));
+    }
+
+    @Benchmark
+    public String getReleasesByPublisher() {
+        return ledger.evaluate(contract, "GetReleasesByPublisher",
+                ctx -> contract.GetReleasesByPublisher(ctx, "Org1MSP", PAGE_SIZE, ""));
+    }
+
+    @Benchmark
+    public String lookupByHash() {
+        String fileHash = BenchmarkLedgers.fileHash(randomRelease(), valueSize);
+        return ledger.evaluate(contract, "LookupByHash", ctx -> contract.LookupByHash(ctx, fileHash));
+    }
+
+    @Benchmark
+    public String getReleaseHistory() {
+        int release = historyRelease(ThreadLocalRandom.current().nextInt(Math.min(HISTORY_SAMPLE, ledgerSize)));
+        return ledger.evaluate(contract, "GetReleaseHistory",
+                ctx -> contract.GetReleaseHistory(ctx, packageOf(release), versionOf(release), PAGE_SIZE, ""));
+    }
+
+    @Benchmark
+    public String listVersions() {
+        String packageId = randomPackage();
+        return ledger.evaluate(contract, "ListVersions",
+                ctx -> contract.ListVersions(ctx, packageId, "", "", PAGE_SIZE, ""));
+    }
+
+    @Benchmark
+    public String getPackageRoot() {
+        String packageId = randomPackage();
+        return ledger.evaluate(contract, "GetPackageRoot", ctx -> contract.GetPackageRoot(ctx, packageId));
+    }
+
+    @Benchmark
+    public String getInclusionProofs() {
+        String packageId = randomPackage();
+        return ledger.evaluate(contract, "GetInclusionProofs", ctx -> contract.GetInclusionProofs(ctx, packageId, ""));
+    }
+
+    @Benchmark
+    public String commitPackageRoot() {
+        String packageId = randomPackage();
+        return ledger.submit(contract, "CommitPackageRoot", ctx -> contract.CommitPackageRoot(ctx, packageId));
+    }
+}
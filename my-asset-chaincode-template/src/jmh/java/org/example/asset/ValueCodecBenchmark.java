@@ -0,0 +1,98 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.example.asset;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.owlike.genson.Genson;
+
+/**
+ * Serialization of a single Asset and SoftwareRelease on its own: Genson
+ * JSON, as used for JSON ledger values and for transaction results, against
+ * the generated binary format. {@code valueSize} is the length of the
+ * asset description and the release file hash.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class ValueCodecBenchmark {
+
+    @Param({"32", "256", "4096"})
+    public int valueSize;
+
+    private final Genson genson = new Genson();
+    private final ValueCodec<Asset> assetBinary =
+            new ValueCodec<>(Asset.class, new AssetBinaryFormat(), ValueFormat.BINARY);
+    private final ValueCodec<SoftwareRelease> releaseBinary =
+            new ValueCodec<>(SoftwareRelease.class, new SoftwareReleaseBinaryFormat(), ValueFormat.BINARY);
+
+    private Asset asset;
+    private SoftwareRelease release;
+    private byte[] assetJson;
+    private byte[] releaseJson;
+    private byte[] assetBytes;
+    private byte[] releaseBytes;
+
+    @Setup
+    public void setup() {
+        asset = new Asset("asset-42", "Benchmark asset", BenchmarkLedgers.text(valueSize), "Org1", 4200);
+        release = new SoftwareRelease("com.example.pkg42", "1.2.3", BenchmarkLedgers.fileHash(42, valueSize),
+                "ACTIVE", "Org1MSP");
+        assetJson = genson.serialize(asset).getBytes(StandardCharsets.UTF_8);
+        releaseJson = genson.serialize(release).getBytes(StandardCharsets.UTF_8);
+        assetBytes = assetBinary.encode(asset);
+        releaseBytes = releaseBinary.encode(release);
+    }
+
+    @Benchmark
+    public String gensonSerializeAsset() {
+        return genson.serialize(asset);
+    }
+
+    @Benchmark
+    public Asset gensonDeserializeAsset() {
+        return genson.deserialize(assetJson, Asset.class);
+    }
+
+    @Benchmark
+    public String gensonSerializeRelease() {
+        return genson.serialize(release);
+    }
+
+    @Benchmark
+    public SoftwareRelease gensonDeserializeRelease() {
+        return genson.deserialize(releaseJson, SoftwareRelease.class);
+    }
+
+    @Benchmark
+    public byte[] binaryEncodeAsset() {
+        return assetBinary.encode(asset);
+    }
+
+    @Benchmark
+    public Asset binaryDecodeAsset() {
+        return assetBinary.decode(assetBytes);
+    }
+
+    @Benchmark
+    public byte[] binaryEncodeRelease() {
+        return releaseBinary.encode(release);
+    }
+
+    @Benchmark
+    public SoftwareRelease binaryDecodeRelease() {
+        return releaseBinary.decode(releaseBytes);
+    }
+}
@@ -0,0 +1,484 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.example.asset.loadgen;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.example.asset.AssetContract;
+import org.example.asset.InMemoryLedger;
+import org.example.asset.SoftwareReleaseContract;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.hyperledger.fabric.shim.ChaincodeException;
+
+/**
+ * Synthetic workload driver for capacity planning.
+ *
+ * Seeds an in-memory ledger with a registry of packages and assets, then
+ * runs a weighted mix of AssetContract and SoftwareReleaseContract calls on
+ * N worker threads for a fixed time. Package popularity follows a Zipf
+ * distribution and new versions follow a realistic semver progression.
+ * Reports throughput and p50/p99/p999 latency per function, with MVCC
+ * conflicts, chaincode errors and any other exceptions counted separately.
+ *
+ * With --peerLatency every state call waits out a simulated peer round
+ * trip, as the shim's worker threads do, so --threads becomes the number of
+ * endorsements in flight. --executor=virtual runs each of them on a virtual
+ * thread instead of a platform thread, to compare how many in-flight
+ * endorsements one JVM sustains either way; it needs Java 21.
+ *
+ * Options, all as --name=value:
+ * <pre>
+ * --threads=8             workers, each running one transaction at a time
+ * --executor=platform     platform or virtual (Java 21) worker threads
+ * --peerLatency=0         simulated peer round trip per state call, microseconds
+ * --duration=30           measured seconds
+ * --warmup=5              seconds run before measuring
+ * --packages=10000        packages in the seeded registry
+ * --versions=10           seeded versions per package
+ * --assets=10000          seeded assets, at least 1 if the mix has asset operations
+ * --scale=1               multiplies packages and assets, e.g. 10 for 10x
+ * --zipf=1.0              Zipf exponent of package popularity
+ * --mix=validate=50,...   operation weights, see {@link Operation}
+ * --lockfile=50           entries per VerifyLockfile call
+ * --seed=42               random seed
+ * --quiet=true            log only errors from the contracts
+ * </pre>
+ */
+public final class LoadGenerator {
+
+    private static final int SEED_BATCH = 1000;
+    private static final int OWNERS = 100;
+
+    private final Map<String, String> options;
+    private final AssetContract assets = new AssetContract();
+    private final SoftwareReleaseContract releases = new SoftwareReleaseContract();
+    private final InMemoryLedger ledger = new InMemoryLedger();
+    private final List<PackageState> packages = new ArrayList<>();
+    private final AtomicInteger nextAssetIndex = new AtomicInteger();
+    private final AssetIndexes assetIndexes = new AssetIndexes();
+    private final Operation[] mix;
+    private final ZipfSampler popularity;
+    private final int lockfileSize;
+    private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> conflicts = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> failures = new EnumMap<>(Operation.class);
+    private final AtomicReference<RuntimeException> firstFailure = new AtomicReference<>();
+
+    private LoadGenerator(final Map<String, String> options) {
+        this.options = options;
+        int scale = intOption("scale", 1);
+        int packageCount = intOption("packages", 10_000) * scale;
+        for (int i = 0; i < packageCount; i++) {
+            packages.add(new PackageState("com.example.pkg" + i, i % 4));
+        }
+        this.popularity = new ZipfSampler(packageCount, Double.parseDouble(options.getOrDefault("zipf", "1.0")));
+        this.mix = parseMix(options.get("mix"));
+        if (intOption("assets", 10_000) * scale < 1) {
+            for (Operation operation : mix) {
+                if (operation == Operation.READ_ASSET || operation == Operation.UPDATE_ASSET
+                        || operation == Operation.PUBLISH_ASSET) {
+                    throw new IllegalArgumentException("--assets must be at least 1 when the mix has asset operations");
+                }
+            }
+        }
+        this.lockfileSize = intOption("lockfile", 50);
+        // Shared by all workers, so thousands of them cost no more to record than a few
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new ConcurrentHistogram(3));
+            conflicts.put(operation, new LongAdder());
+            errors.put(operation, new LongAdder());
+            failures.put(operation, new LongAdder());
+        }
+    }
+
+    public static void main(final String[] args) throws InterruptedException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+                throw new IllegalArgumentException("Options are --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        if (Boolean.parseBoolean(options.getOrDefault("quiet", "true"))) {
+            // Read once, when the contracts first log
+            System.setProperty("CORE_CHAINCODE_LOGGING_LEVEL", "ERROR");
+        }
+        new LoadGenerator(options).run();
+    }
+
+    private void run() throws InterruptedException {
+        PrintStream out = System.out;
+
+        long seedStart = System.nanoTime();
+        seed(new Random(longOption("seed", 42)));
+        out.printf("Seeded %d packages, %d assets, %d keys in %.1f s%n", packages.size(), assetIndexes.size(),
+                ledger.size(), (System.nanoTime() - seedStart) / 1e9);
+
+        // After seeding, which would otherwise pay the latency too
+        ledger.withPeerLatency(Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(intOption("peerLatency", 0))));
+
+        int threads = intOption("threads", 8);
+        String executorName = options.getOrDefault("executor", "platform");
+        ExecutorService executor = executor(executorName, threads);
+        long warmupNanos = TimeUnit.SECONDS.toNanos(intOption("warmup", 5));
+        long durationNanos = TimeUnit.SECONDS.toNanos(intOption("duration", 30));
+        long start = System.nanoTime();
+        long measureFrom = start + warmupNanos;
+        long end = measureFrom + durationNanos;
+
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.execute(new Worker(new Random(longOption("seed", 42) + 1 + i), measureFrom, end, done));
+        }
+        done.await();
+        executor.shutdown();
+
+        report(out, executorName, threads, durationNanos);
+    }
+
+    private static ExecutorService executor(final String name, final int threads) {
+        switch (name) {
+            case "platform": {
+                AtomicInteger count = new AtomicInteger();
+                return Executors.newFixedThreadPool(threads, task -> {
+                    Thread thread = new Thread(task, "loadgen-" + count.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            case "virtual":
+                // Looked up at run time: the loadgen is built for Java 11 and only runs on 21
+                try {
+                    return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+                } catch (NoSuchMethodException e) {
+                    throw new IllegalArgumentException(
+                            "--executor=virtual needs Java 21, run with ./gradlew loadgen -PloadgenJava=21", e);
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException("Cannot create virtual threads", e);
+                }
+            default:
+                throw new IllegalArgumentException("--executor is platform or virtual, got " + name);
+        }
+    }
+
+    /**
+     * Publish the initial registry through the contracts, in manifest batches.
+     */
+    private void seed(final Random random) {
+        int versions = intOption("versions", 10);
+        if (versions < 1) {
+            throw new IllegalArgumentException("Every package needs at least one seeded version");
+        }
+        StringBuilder manifest = new StringBuilder();
+        List<PackageState> owners = new ArrayList<>();
+        List<PackageState.Release> pending = new ArrayList<>();
+        for (PackageState state : packages) {
+            for (int v = 0; v < versions; v++) {
+                PackageState.Release release = new PackageState.Release(state.nextVersion(random), fileHash(random));
+                manifest.append(state.packageId()).append(' ').append(release.version).append(' ')
+                        .append(release.fileHash).append('\n');
+                owners.add(state);
+                pending.add(release);
+                if (pending.size() == SEED_BATCH) {
+                    publishSeed(manifest, owners, pending);
+                }
+            }
+        }
+        if (!pending.isEmpty()) {
+            publishSeed(manifest, owners, pending);
+        }
+
+        int assetTotal = intOption("assets", 10_000) * intOption("scale", 1);
+        for (int i = 0; i < assetTotal; i++) {
+            publishAsset(random);
+        }
+    }
+
+    private void publishSeed(final StringBuilder manifest, final List<PackageState> owners,
+                             final List<PackageState.Release> pending) {
+        String batch = manifest.toString();
+        ledger.submit(releases, "PublishReleases", ctx -> releases.PublishReleases(ctx, batch));
+        for (int i = 0; i < pending.size(); i++) {
+            owners.get(i).published(pending.get(i));
+        }
+        manifest.setLength(0);
+        owners.clear();
+        pending.clear();
+    }
+
+    /**
+     * Publish a new asset; it becomes a candidate for reads and updates only
+     * once its transaction has committed.
+     */
+    private void publishAsset(final Random random) {
+        int index = nextAssetIndex.getAndIncrement();
+        String assetID = "asset-" + index;
+        String owner = "Org" + random.nextInt(OWNERS);
+        int value = random.nextInt(10_000);
+        ledger.submit(assets, "PublishAsset",
+                ctx -> assets.PublishAsset(ctx, assetID, "Asset " + index, "Generated asset", owner, value));
+        assetIndexes.add(index);
+    }
+
+    /**
+     * Indexes of the committed assets. Concurrent publishes commit out of
+     * order, so the committed ones are listed rather than counted.
+     */
+    private static final class AssetIndexes {
+        private final AtomicInteger size = new AtomicInteger();
+        private volatile int[] indexes = new int[1024];
+
+        synchronized void add(final int index) {
+            int count = size.get();
+            if (count == indexes.length) {
+                indexes = Arrays.copyOf(indexes, count * 2);
+            }
+            indexes[count] = index;
+            // Publishes the element to readers that see the new size
+            size.set(count + 1);
+        }
+
+        int size() {
+            return size.get();
+        }
+
+        int random(final Random random) {
+            int count = size.get();
+            return indexes[random.nextInt(count)];
+        }
+    }
+
+    /**
+     * One worker: runs operations from the mix until the end time and
+     * records the latency of each completed call once warmup is over.
+     */
+    private final class Worker implements Runnable {
+        private final Random random;
+        private final long measureFrom;
+        private final long end;
+        private final CountDownLatch done;
+
+        Worker(final Random random, final long measureFrom, final long end, final CountDownLatch done) {
+            this.random = random;
+            this.measureFrom = measureFrom;
+            this.end = end;
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            try {
+                long now = System.nanoTime();
+                while (now < end) {
+                    Operation operation = mix[random.nextInt(mix.length)];
+                    int outcome = 0;
+                    try {
+                        execute(operation);
+                    } catch (InMemoryLedger.InvalidTransactionException e) {
+                        outcome = 1;
+                    } catch (ChaincodeException e) {
+                        outcome = 2;
+                    } catch (RuntimeException e) {
+                        // Counted rather than ending the worker; the first one is reported
+                        firstFailure.compareAndSet(null, e);
+                        outcome = 3;
+                    }
+                    long finished = System.nanoTime();
+                    if (now >= measureFrom) {
+                        if (outcome == 0) {
+                            latencies.get(operation).recordValue(Math.max(1, (finished - now) / 1000));
+                        } else if (outcome == 1) {
+                            conflicts.get(operation).increment();
+                        } else if (outcome == 2) {
+                            errors.get(operation).increment();
+                        } else {
+                            failures.get(operation).increment();
+                        }
+                    }
+                    now = finished;
+                }
+            } finally {
+                done.countDown();
+            }
+        }
+
+        private void execute(final Operation operation) {
+            PackageState state = packages.get(popularity.next(random));
+            switch (operation) {
+                case PUBLISH_RELEASE: {
+                    PackageState.Release release = new PackageState.Release(state.nextVersion(random), fileHash(random));
+                    ledger.submit(releases, "PublishRelease",
+                            ctx -> releases.PublishRelease(ctx, state.packageId(), release.version, release.fileHash));
+                    state.published(release);
+                    break;
+                }
+                case VALIDATE_RELEASE: {
+                    PackageState.Release release = state.randomRelease(random);
+                    ledger.evaluate(releases, "ValidateRelease",
+                            ctx -> releases.ValidateRelease(ctx, state.packageId(), release.version, release.fileHash));
+                    break;
+                }
+                case GET_RELEASE: {
+                    PackageState.Release release = state.randomRelease(random);
+                    ledger.evaluate(releases, "GetRelease",
+                            ctx -> releases.GetRelease(ctx, state.packageId(), release.version));
+                    break;
+                }
+                case DISCONTINUE_RELEASE: {
+                    PackageState.Release release = state.randomRelease(random);
+                    ledger.submit(releases, "DiscontinueRelease",
+                            ctx -> releases.DiscontinueRelease(ctx, state.packageId(), release.version));
+                    break;
+                }
+                case RESOLVE_TAG:
+                    ledger.evaluate(releases, "ResolveTag", ctx -> releases.ResolveTag(ctx, state.packageId(), "latest"));
+                    break;
+                case VERIFY_LOCKFILE: {
+                    String lockfile = lockfile();
+                    ledger.evaluate(releases, "VerifyLockfile", ctx -> releases.VerifyLockfile(ctx, lockfile));
+                    break;
+                }
+                case PUBLISH_ASSET:
+                    publishAsset(random);
+                    break;
+                case READ_ASSET: {
+                    String assetID = "asset-" + assetIndexes.random(random);
+                    ledger.evaluate(assets, "ReadAsset", ctx -> assets.ReadAsset(ctx, assetID));
+                    break;
+                }
+                case UPDATE_ASSET: {
+                    String assetID = "asset-" + assetIndexes.random(random);
+                    String owner = "Org" + random.nextInt(OWNERS);
+                    int value = random.nextInt(10_000);
+                    ledger.submit(assets, "UpdateAsset",
+                            ctx -> assets.UpdateAsset(ctx, assetID, "Asset", "Updated asset", owner, value));
+                    break;
+                }
+                default:
+                    throw new IllegalStateException("Unhandled operation " + operation);
+            }
+        }
+
+        private String lockfile() {
+            StringBuilder manifest = new StringBuilder();
+            for (int i = 0; i < lockfileSize; i++) {
+                PackageState state = packages.get(popularity.next(random));
+                PackageState.Release release = state.randomRelease(random);
+                manifest.append(state.packageId()).append(' ').append(release.version).append(' ')
+                        .append(release.fileHash).append('\n');
+            }
+            return manifest.toString();
+        }
+    }
+
+    private void report(final PrintStream out, final String executorName, final int threads, final long durationNanos) {
+        double seconds = durationNanos / 1e9;
+        out.printf("%d %s workers, peer latency %s us, %.0f s measured, %d packages, Zipf %s%n", threads,
+                executorName, options.getOrDefault("peerLatency", "0"), seconds, packages.size(),
+                options.getOrDefault("zipf", "1.0"));
+        Runtime runtime = Runtime.getRuntime();
+        out.printf("Peak platform threads %d, heap used %d MB%n", ManagementFactory.getThreadMXBean().getPeakThreadCount(),
+                (runtime.totalMemory() - runtime.freeMemory()) >> 20);
+        out.printf("%-20s %10s %10s %10s %10s %10s %10s %10s %8s %8s%n", "function", "count", "ops/s",
+                "p50 us", "p99 us", "p999 us", "max us", "conflicts", "errors", "failures");
+
+        Histogram total = new Histogram(3);
+        long totalConflicts = 0;
+        long totalErrors = 0;
+        long totalFailures = 0;
+        for (Operation operation : Operation.values()) {
+            Histogram latency = latencies.get(operation);
+            long operationConflicts = conflicts.get(operation).sum();
+            long operationErrors = errors.get(operation).sum();
+            long operationFailures = failures.get(operation).sum();
+            if (latency.getTotalCount() == 0 && operationConflicts == 0 && operationErrors == 0
+                    && operationFailures == 0) {
+                continue;
+            }
+            printRow(out, operation.mixName(), latency, seconds, operationConflicts, operationErrors, operationFailures);
+            total.add(latency);
+            totalConflicts += operationConflicts;
+            totalErrors += operationErrors;
+            totalFailures += operationFailures;
+        }
+        printRow(out, "total", total, seconds, totalConflicts, totalErrors, totalFailures);
+
+        RuntimeException failure = firstFailure.get();
+        if (failure != null) {
+            out.println("First failure:");
+            failure.printStackTrace(out);
+        }
+    }
+
+    private static void printRow(final PrintStream out, final String name, final Histogram histogram,
+                                 final double seconds, final long conflicts, final long errors, final long failures) {
+        out.printf("%-20s %10d %10.0f %10d %10d %10d %10d %10d %8d %8d%n", name, histogram.getTotalCount(),
+                histogram.getTotalCount() / seconds,
+                histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(99),
+                histogram.getValueAtPercentile(99.9), histogram.getMaxValue(), conflicts, errors, failures);
+    }
+
+    /**
+     * Expand the weights into a lookup table, so picking an operation is one random index.
+     */
+    private static Operation[] parseMix(final String spec) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        if (spec == null || spec.isEmpty()) {
+            for (Operation operation : Operation.values()) {
+                weights.put(operation, operation.defaultWeight());
+            }
+        } else {
+            for (String part : spec.split(",")) {
+                String[] entry = part.split("=");
+                if (entry.length != 2) {
+                    throw new IllegalArgumentException("Mix entries are name=weight, got " + part);
+                }
+                weights.put(Operation.forMixName(entry[0].trim()), Integer.parseInt(entry[1].trim()));
+            }
+        }
+
+        List<Operation> table = new ArrayList<>();
+        for (Map.Entry<Operation, Integer> weight : weights.entrySet()) {
+            for (int i = 0; i < weight.getValue(); i++) {
+                table.add(weight.getKey());
+            }
+        }
+        if (table.isEmpty()) {
+            throw new IllegalArgumentException("Mix has no operations with a positive weight");
+        }
+        return table.toArray(new Operation[0]);
+    }
+
+    private static String fileHash(final Random random) {
+        return String.format("sha256:%016x%016x%016x%016x",
+                random.nextLong(), random.nextLong(), random.nextLong(), random.nextLong());
+    }
+
+    private int intOption(final String name, final int defaultValue) {
+        return Integer.parseInt(options.getOrDefault(name, Integer.toString(defaultValue)));
+    }
+
+    private long longOption(final String name, final long defaultValue) {
+        return Long.parseLong(options.getOrDefault(name, Long.toString(defaultValue)));
+    }
+}
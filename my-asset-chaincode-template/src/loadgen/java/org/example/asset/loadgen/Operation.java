@@ -0,0 +1,46 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.example.asset.loadgen;
+
+/**
+ * The contract functions the generator drives, with their default share of
+ * the mix: read-heavy, as a registry serving installs is.
+ */
+enum Operation {
+    PUBLISH_RELEASE("publish", 5),
+    VALIDATE_RELEASE("validate", 50),
+    GET_RELEASE("get", 20),
+    DISCONTINUE_RELEASE("discontinue", 1),
+    RESOLVE_TAG("resolveTag", 5),
+    VERIFY_LOCKFILE("verifyLockfile", 1),
+    PUBLISH_ASSET("publishAsset", 3),
+    READ_ASSET("readAsset", 10),
+    UPDATE_ASSET("updateAsset", 5);
+
+    private final String mixName;
+    private final int defaultWeight;
+
+    Operation(final String mixName, final int defaultWeight) {
+        this.mixName = mixName;
+        this.defaultWeight = defaultWeight;
+    }
+
+    String mixName() {
+        return mixName;
+    }
+
+    int defaultWeight() {
+        return defaultWeight;
+    }
+
+    static Operation forMixName(final String name) {
+        for (Operation operation : values()) {
+            if (operation.mixName.equals(name)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation in mix: " + name);
+    }
+}
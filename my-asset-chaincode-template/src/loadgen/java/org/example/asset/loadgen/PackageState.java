@@ -0,0 +1,107 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.example.asset.loadgen;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The releases the generator has published for one package, and the version
+ * scheme it follows: mostly patch releases, some minor and the odd major,
+ * with a share of alpha, beta and rc pre-releases ahead of a release.
+ */
+final class PackageState {
+
+    /**
+     * A published release the generator can validate, read or discontinue.
+     */
+    static final class Release {
+        final String version;
+        final String fileHash;
+
+        Release(final String version, final String fileHash) {
+            this.version = version;
+            this.fileHash = fileHash;
+        }
+    }
+
+    private static final String[] PRERELEASE_TAGS = {"alpha", "beta", "rc"};
+
+    private final String packageId;
+    private final List<Release> releases = new ArrayList<>();
+    private int major;
+    private int minor;
+    private int patch;
+    private int prereleaseTag = -1;
+    private int prereleaseNumber;
+
+    PackageState(final String packageId, final int major) {
+        this.packageId = packageId;
+        this.major = major;
+    }
+
+    String packageId() {
+        return packageId;
+    }
+
+    /**
+     * Choose the next version to publish.
+     */
+    synchronized String nextVersion(final Random random) {
+        if (prereleaseTag >= 0) {
+            // Either another pre-release on the same line, the next stage, or the release itself
+            double roll = random.nextDouble();
+            if (roll < 0.5) {
+                prereleaseNumber++;
+                return prerelease();
+            }
+            if (roll < 0.8 && prereleaseTag < PRERELEASE_TAGS.length - 1) {
+                prereleaseTag++;
+                prereleaseNumber = 1;
+                return prerelease();
+            }
+            prereleaseTag = -1;
+            return core();
+        }
+
+        double roll = random.nextDouble();
+        if (roll < 0.05) {
+            major++;
+            minor = 0;
+            patch = 0;
+        } else if (roll < 0.30) {
+            minor++;
+            patch = 0;
+        } else {
+            patch++;
+        }
+        if (random.nextDouble() < 0.10) {
+            prereleaseTag = random.nextInt(PRERELEASE_TAGS.length);
+            prereleaseNumber = 1;
+            return prerelease();
+        }
+        return core();
+    }
+
+    synchronized void published(final Release release) {
+        releases.add(release);
+    }
+
+    /**
+     * A random published release, or null if there is none yet.
+     */
+    synchronized Release randomRelease(final Random random) {
+        return releases.isEmpty() ? null : releases.get(random.nextInt(releases.size()));
+    }
+
+    private String core() {
+        return major + "." + minor + "." + patch;
+    }
+
+    private String prerelease() {
+        return core() + "-" + PRERELEASE_TAGS[prereleaseTag] + "." + prereleaseNumber;
+    }
+}
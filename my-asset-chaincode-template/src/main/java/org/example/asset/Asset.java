@@ -8,8 +8,10 @@ import org.hyperledger.fabric.contract.annotation.DataType;
 import org.hyperledger.fabric.contract.annotation.Property;
 
 import com.owlike.genson.annotation.JsonProperty;
+import org.example.asset.codegen.LedgerValue;
 
 @DataType
+@LedgerValue
 public class Asset {
     @Property
     private String assetID;
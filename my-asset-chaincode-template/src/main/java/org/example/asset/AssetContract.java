@@ -4,8 +4,10 @@
 
 package org.example.asset;
 
-import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 import org.hyperledger.fabric.contract.Context;
 import org.hyperledger.fabric.contract.ContractInterface;
@@ -16,8 +18,13 @@ import org.hyperledger.fabric.contract.annotation.License;
 import org.hyperledger.fabric.contract.annotation.Transaction;
 import org.hyperledger.fabric.shim.ChaincodeException;
 import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
 import org.hyperledger.fabric.shim.ledger.KeyValue;
 import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIteratorWithMetadata;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
 
 import com.owlike.genson.Genson;
 
@@ -36,11 +43,86 @@ import com.owlike.genson.Genson;
 @Default
 public class AssetContract implements ContractInterface {
 
+    /**
+     * Composite key object type for assets, so asset scans never see release records
+     */
+    static final String ASSET_KEY_TYPE = "asset";
+
+    /**
+     * Index of assets by owner, kept in step with every asset write
+     */
+    static final String OWNER_INDEX = "owner~assetID";
+
+    /**
+     * Index entries carry no data, the composite key is the entry
+     */
+    private static final byte[] INDEX_VALUE = {0x00};
+
+    /**
+     * Per-transaction changes to an owner's total asset value. Every
+     * transaction writes its own key, so concurrent writers never conflict.
+     */
+    static final String OWNER_TOTAL_DELTA = "ownertotal~owner~txID";
+
+    /**
+     * Owner totals with the deltas folded in by CompactOwnerTotals
+     */
+    static final String OWNER_TOTAL_CHECKPOINT = "ownertotal~owner";
+
+    /**
+     * Marker written once MigrateLegacyAssets has examined the whole legacy
+     * range, keyed by the record type it migrated. Its presence turns off the
+     * legacy key fallback.
+     */
+    static final String LEGACY_MIGRATED_KEY_TYPE = "legacymigrated";
+
+    /**
+     * Chaincode event listing the keys changed by an asset transaction
+     */
+    static final String CHANGE_EVENT = "AssetsChanged";
+
+    /**
+     * Contract label on the transaction metrics
+     */
+    private static final String CONTRACT_NAME = "assetcontract";
+
     private final Genson genson = new Genson();
 
+    /**
+     * Assets are written as JSON so CouchDB can index them and answer QueryAssets selectors.
+     * Package-private so tools that seed a ledger directly write the same bytes.
+     */
+    final ValueCodec<Asset> assetCodec =
+            new ValueCodec<>(Asset.class, new AssetBinaryFormat(), ValueFormat.JSON);
+
+    /**
+     * Use a {@link LedgerContext} so repeated reads within a transaction are served locally,
+     * over a stub that counts state access for {@link TransactionMetrics}.
+     */
+    @Override
+    public Context createContext(final ChaincodeStub stub) {
+        return new LedgerContext(new MeteredChaincodeStub(stub));
+    }
+
+    @Override
+    public void beforeTransaction(final Context ctx) {
+        TransactionMetrics.started(CONTRACT_NAME, ctx);
+    }
+
+    /**
+     * Announce every key the transaction changed in one chaincode event.
+     */
+    @Override
+    public void afterTransaction(final Context ctx, final Object result) {
+        LedgerContext.of(ctx).emitChanges(CHANGE_EVENT);
+        TransactionMetrics.succeeded(CONTRACT_NAME, ctx);
+    }
+
     private enum AssetErrors {
         ASSET_NOT_FOUND,
-        ASSET_ALREADY_EXISTS
+        ASSET_ALREADY_EXISTS,
+        INVALID_PAGE_SIZE,
+        INVALID_QUERY
     }
 
     /**
@@ -48,9 +130,11 @@ public class AssetContract implements ContractInterface {
      */
     @Transaction(intent = Transaction.TYPE.SUBMIT)
     public void InitLedger(final Context ctx) {
-        publishAsset(ctx, new Asset("asset1", "Sample Asset 1", "First sample asset", "Org1", 1000));
-        publishAsset(ctx, new Asset("asset2", "Sample Asset 2", "Second sample asset", "Org2", 2000));
-        System.out.println("Ledger initialized with sample assets");
+        publishAsset(ctx, new Asset("asset1", "Sample Asset 1", "First sample asset", "Org1", 1000),
+                currentAsset(ctx, "asset1"));
+        publishAsset(ctx, new Asset("asset2", "Sample Asset 2", "Second sample asset", "Org2", 2000),
+                currentAsset(ctx, "asset2"));
+        TransactionLog.info(ctx, "ledger.initialized", "assets", 2);
     }
 
     /**
@@ -75,27 +159,50 @@ public class AssetContract implements ContractInterface {
         
         // Check if asset already exists
         if (AssetExists(ctx, assetID)) {
+            TransactionLog.warning(ctx, "asset.exists", "assetID", assetID);
             String errorMessage = String.format("Asset %s already exists", assetID);
-            System.out.println(errorMessage);
             throw new ChaincodeException(errorMessage, AssetErrors.ASSET_ALREADY_EXISTS.toString());
         }
 
         // Create and publish the asset
         Asset asset = new Asset(assetID, name, description, owner, value);
-        return publishAsset(ctx, asset);
+        return publishAsset(ctx, asset, null);
     }
 
     /**
      * Internal method to publish asset to ledger state
+     *
+     * @param previous the asset currently stored under the same ID, or null
      */
-    private Asset publishAsset(final Context ctx, final Asset asset) {
-        // Serialize asset to JSON
-        String assetJSON = genson.serialize(asset);
+    private Asset publishAsset(final Context ctx, final Asset asset, final Asset previous) {
+        LedgerContext ledger = LedgerContext.of(ctx);
+
+        // Encode asset in the configured value format
+        byte[] assetValue = assetCodec.encode(asset);
         
         // Write to ledger state (this is what actually publishes to the blockchain)
-        ctx.getStub().putStringState(asset.getAssetID(), assetJSON);
+        ledger.putObject(assetKey(ctx, asset.getAssetID()), asset, assetValue);
+
+        // Keep the owner index and totals in the same transaction as the asset itself
+        String previousOwner = previous == null ? null : previous.getOwner();
+        if (previous != null && Objects.equals(previousOwner, asset.getOwner())) {
+            addOwnerTotal(ctx, asset.getOwner(), (long) asset.getValue() - previous.getValue());
+        } else {
+            if (previous != null) {
+                addOwnerTotal(ctx, previousOwner, -(long) previous.getValue());
+            }
+            addOwnerTotal(ctx, asset.getOwner(), asset.getValue());
+        }
+        if (previous == null || !Objects.equals(previousOwner, asset.getOwner())) {
+            if (previousOwner != null) {
+                ledger.delState(ownerIndexKey(ctx, previousOwner, asset.getAssetID()));
+            }
+            if (asset.getOwner() != null) {
+                ledger.putState(ownerIndexKey(ctx, asset.getOwner(), asset.getAssetID()), INDEX_VALUE);
+            }
+        }
         
-        System.out.println("Asset published to ledger: " + asset.getAssetID());
+        TransactionLog.info(ctx, "asset.published", "assetID", asset.getAssetID());
         return asset;
     }
 
@@ -108,15 +215,15 @@ public class AssetContract implements ContractInterface {
      */
     @Transaction(intent = Transaction.TYPE.EVALUATE)
     public Asset ReadAsset(final Context ctx, final String assetID) {
-        String assetJSON = ctx.getStub().getStringState(assetID);
+        Asset asset = findAsset(ctx, assetID);
 
-        if (assetJSON == null || assetJSON.isEmpty()) {
+        if (asset == null) {
+            TransactionLog.warning(ctx, "asset.not_found", "assetID", assetID);
             String errorMessage = String.format("Asset %s does not exist", assetID);
-            System.out.println(errorMessage);
             throw new ChaincodeException(errorMessage, AssetErrors.ASSET_NOT_FOUND.toString());
         }
 
-        return genson.deserialize(assetJSON, Asset.class);
+        return asset;
     }
 
     /**
@@ -124,8 +231,7 @@ public class AssetContract implements ContractInterface {
      */
     @Transaction(intent = Transaction.TYPE.EVALUATE)
     public boolean AssetExists(final Context ctx, final String assetID) {
-        String assetJSON = ctx.getStub().getStringState(assetID);
-        return (assetJSON != null && !assetJSON.isEmpty());
+        return LedgerContext.of(ctx).exists(assetKey(ctx, assetID)) || findLegacyAsset(ctx, assetID) != null;
     }
 
     /**
@@ -137,17 +243,178 @@ public class AssetContract implements ContractInterface {
     @Transaction(intent = Transaction.TYPE.EVALUATE)
     public String GetAllAssets(final Context ctx) {
         ChaincodeStub stub = ctx.getStub();
-        List<Asset> queryResults = new ArrayList<>();
+        JsonListWriter assets = JsonListWriter.array();
+
+        // Only the asset partition of the key space is scanned
+        QueryResultsIterator<KeyValue> results = stub.getStateByPartialCompositeKey(new CompositeKey(ASSET_KEY_TYPE));
+
+        // JSON values are spliced in as-is, binary ones transcoded without building an Asset
+        for (KeyValue result : results) {
+            assetCodec.appendJson(result.getValue(), assets);
+        }
+
+        return assets.end();
+    }
+
+    /**
+     * Get one page of assets from the ledger.
+     * Pass an empty bookmark for the first page, then the bookmark returned
+     * by the previous call until it comes back empty.
+     *
+     * @param ctx the transaction context
+     * @param pageSize maximum number of assets to return
+     * @param bookmark opaque bookmark returned by the previous page
+     * @return JSON string with the records, the fetched count and the next bookmark
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetAllAssetsWithPagination(final Context ctx, final int pageSize, final String bookmark) {
+        checkPageSize(pageSize);
+
+        ChaincodeStub stub = ctx.getStub();
+        JsonListWriter page = JsonListWriter.page();
+
+        QueryResultsIteratorWithMetadata<KeyValue> results = stub.getStateByPartialCompositeKeyWithPagination(
+                new CompositeKey(ASSET_KEY_TYPE), pageSize, bookmark == null ? "" : bookmark);
+
+        for (KeyValue result : results) {
+            assetCodec.appendJson(result.getValue(), page);
+        }
+
+        return page.endPage(results.getMetadata().getFetchedRecordsCount(), results.getMetadata().getBookmark());
+    }
+
+    /**
+     * Get one page of the assets held by an owner, from the owner index.
+     * Works on every state database and costs in proportion to the owner's
+     * assets, not the whole ledger.
+     *
+     * @param ctx the transaction context
+     * @param owner the owner to list
+     * @param pageSize maximum number of assets to return
+     * @param bookmark bookmark returned by the previous page, empty to start
+     * @return JSON string with the records, the fetched count and the next bookmark
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetAssetsByOwner(final Context ctx, final String owner, final int pageSize, final String bookmark) {
+        checkPageSize(pageSize);
+
+        ChaincodeStub stub = ctx.getStub();
+        LedgerContext ledger = LedgerContext.of(ctx);
+        JsonListWriter page = JsonListWriter.page();
+
+        QueryResultsIteratorWithMetadata<KeyValue> results = stub.getStateByPartialCompositeKeyWithPagination(
+                new CompositeKey(OWNER_INDEX, owner), pageSize, bookmark == null ? "" : bookmark);
+
+        for (KeyValue result : results) {
+            List<String> attributes = stub.splitCompositeKey(result.getKey()).getAttributes();
+            byte[] assetValue = ledger.getState(assetKey(ctx, attributes.get(1)));
+            if (assetValue != null) {
+                assetCodec.appendJson(assetValue, page);
+            }
+        }
+
+        return page.endPage(results.getMetadata().getFetchedRecordsCount(), results.getMetadata().getBookmark());
+    }
+
+    /**
+     * Total value of the assets held by an owner.
+     *
+     * Reads the owner's checkpoint plus the deltas written since the last
+     * CompactOwnerTotals. Owners that have never been compacted are summed
+     * from the owner index instead, which costs a read of every asset the
+     * owner holds; compact each owner once to make this a short scan.
+     *
+     * @param ctx the transaction context
+     * @param owner the owner to total
+     * @return the sum of the owner's asset values
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public long GetOwnerTotal(final Context ctx, final String owner) {
+        byte[] checkpoint = LedgerContext.of(ctx).getState(ownerTotalCheckpointKey(ctx, owner));
+        if (checkpoint == null) {
+            return sumOwnerAssets(ctx, owner);
+        }
+
+        long total = readTotal(checkpoint);
+        for (KeyValue delta : ctx.getStub().getStateByPartialCompositeKey(new CompositeKey(OWNER_TOTAL_DELTA, owner))) {
+            total += readTotal(delta.getValue());
+        }
+        return total;
+    }
+
+    /**
+     * Fold an owner's total deltas into its checkpoint and delete them, so
+     * GetOwnerTotal stays a short scan. The first compaction of an owner
+     * seeds the checkpoint from the owner index.
+     *
+     * A compaction that races with an asset write for the same owner fails
+     * validation and can simply be retried; the asset write always commits.
+     *
+     * @param ctx the transaction context
+     * @param owner the owner to compact
+     * @return the owner's total after compaction
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public long CompactOwnerTotals(final Context ctx, final String owner) {
+        LedgerContext ledger = LedgerContext.of(ctx);
+        String checkpointKey = ownerTotalCheckpointKey(ctx, owner);
+        byte[] checkpoint = ledger.getState(checkpointKey);
+
+        // Without a checkpoint the owner's assets already reflect every delta
+        long total = checkpoint == null ? sumOwnerAssets(ctx, owner) : readTotal(checkpoint);
+        int folded = 0;
+        for (KeyValue delta : ctx.getStub().getStateByPartialCompositeKey(new CompositeKey(OWNER_TOTAL_DELTA, owner))) {
+            if (checkpoint != null) {
+                total += readTotal(delta.getValue());
+            }
+            ledger.delState(delta.getKey());
+            folded++;
+        }
+
+        ledger.putState(checkpointKey, writeTotal(total));
+        TransactionLog.info(ctx, "owner_total.compacted", "owner", owner, "deltas", folded);
+        return total;
+    }
 
-        // Get all assets using range query (empty start and end = all keys)
-        QueryResultsIterator<KeyValue> results = stub.getStateByRange("", "");
+    /**
+     * Get one page of assets matching a CouchDB selector, for example
+     * {"owner": "Org1"} or {"value": {"$gt": 1000}}. The chaincode ships
+     * CouchDB indexes on owner and value, so such queries are index-backed.
+     * Only available when the peer uses CouchDB as its state database.
+     *
+     * @param ctx the transaction context
+     * @param selectorJson a CouchDB Mango selector object
+     * @param pageSize maximum number of assets to return
+     * @param bookmark bookmark returned by the previous page, empty to start
+     * @return JSON string with the records, the fetched count and the next bookmark
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String QueryAssets(final Context ctx, final String selectorJson, final int pageSize, final String bookmark) {
+        checkPageSize(pageSize);
+
+        JSONObject selector;
+        try {
+            selector = new JSONObject(selectorJson);
+        } catch (JSONException e) {
+            String errorMessage = String.format("Selector is not a JSON object: %s", e.getMessage());
+            throw new ChaincodeException(errorMessage, AssetErrors.INVALID_QUERY.toString());
+        }
+
+        // Restrict the selector to asset documents; release values have no assetID
+        JSONObject isAsset = new JSONObject().put("assetID", new JSONObject().put("$exists", true));
+        String query = new JSONObject()
+                .put("selector", new JSONObject().put("$and", new JSONArray().put(isAsset).put(selector)))
+                .toString();
+
+        JsonListWriter page = JsonListWriter.page();
+        QueryResultsIteratorWithMetadata<KeyValue> results =
+                ctx.getStub().getQueryResultWithPagination(query, pageSize, bookmark == null ? "" : bookmark);
 
         for (KeyValue result : results) {
-            Asset asset = genson.deserialize(result.getStringValue(), Asset.class);
-            queryResults.add(asset);
+            assetCodec.appendJson(result.getValue(), page);
         }
 
-        return genson.serialize(queryResults);
+        return page.endPage(results.getMetadata().getFetchedRecordsCount(), results.getMetadata().getBookmark());
     }
 
     /**
@@ -161,14 +428,20 @@ public class AssetContract implements ContractInterface {
                              final String owner,
                              final int value) {
         
-        if (!AssetExists(ctx, assetID)) {
+        Asset existing = findAsset(ctx, assetID);
+        if (existing == null) {
+            TransactionLog.warning(ctx, "asset.not_found", "assetID", assetID);
             String errorMessage = String.format("Asset %s does not exist", assetID);
-            System.out.println(errorMessage);
             throw new ChaincodeException(errorMessage, AssetErrors.ASSET_NOT_FOUND.toString());
         }
 
         Asset updatedAsset = new Asset(assetID, name, description, owner, value);
-        return publishAsset(ctx, updatedAsset);
+        Asset previous = currentAsset(ctx, assetID);
+        if (previous == null) {
+            // Legacy records are not in the owner index or totals yet, so publish it as new
+            LedgerContext.of(ctx).delState(assetID);
+        }
+        return publishAsset(ctx, updatedAsset, previous);
     }
 
     /**
@@ -176,15 +449,190 @@ public class AssetContract implements ContractInterface {
      */
     @Transaction(intent = Transaction.TYPE.SUBMIT)
     public void DeleteAsset(final Context ctx, final String assetID) {
-        if (!AssetExists(ctx, assetID)) {
+        Asset existing = findAsset(ctx, assetID);
+        if (existing == null) {
+            TransactionLog.warning(ctx, "asset.not_found", "assetID", assetID);
             String errorMessage = String.format("Asset %s does not exist", assetID);
-            System.out.println(errorMessage);
             throw new ChaincodeException(errorMessage, AssetErrors.ASSET_NOT_FOUND.toString());
         }
 
-        ctx.getStub().delState(assetID);
-        System.out.println("Asset deleted from ledger: " + assetID);
+        LedgerContext ledger = LedgerContext.of(ctx);
+        if (currentAsset(ctx, assetID) == null) {
+            // Legacy records are not in the owner index or totals yet
+            ledger.delState(assetID);
+            TransactionLog.info(ctx, "asset.deleted", "assetID", assetID);
+            return;
+        }
+        ledger.delState(assetKey(ctx, assetID));
+        if (existing.getOwner() != null) {
+            ledger.delState(ownerIndexKey(ctx, existing.getOwner(), assetID));
+        }
+        addOwnerTotal(ctx, existing.getOwner(), -(long) existing.getValue());
+        TransactionLog.info(ctx, "asset.deleted", "assetID", assetID);
     }
-}
 
+    /**
+     * Move assets stored under their raw assetID (before assets had their own
+     * composite key type) to the composite key, re-encoded in the current
+     * value format. Call repeatedly with the
+     * returned bookmark until it comes back empty. Release records found in
+     * the legacy range are left for SoftwareReleaseContract:MigrateLegacyReleases.
+     *
+     * Until an asset is migrated it is still found under its legacy key. A
+     * legacy record whose composite key already exists is out of date and is
+     * deleted rather than migrated. The call that returns an empty bookmark
+     * marks the migration complete, after which assets are only looked up
+     * under their composite key; run the migration once on new ledgers too,
+     * so they skip the legacy lookup.
+     *
+     * @param ctx the transaction context
+     * @param pageSize number of legacy keys to examine in this call
+     * @param bookmark bookmark returned by the previous call, empty to start
+     * @return JSON string with the migrated count, the examined count and the next bookmark
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String MigrateLegacyAssets(final Context ctx, final int pageSize, final String bookmark) {
+        checkPageSize(pageSize);
+
+        ChaincodeStub stub = ctx.getStub();
+        int migrated = 0;
+
+        // Simple-key range scans never return composite keys, so this only sees legacy records.
+        // Paginated queries cannot be used in a transaction that writes, so the page is cut
+        // here and the bookmark is the key the next call starts at.
+        QueryResultsIterator<KeyValue> results = stub.getStateByRange(bookmark == null ? "" : bookmark, "");
+        LedgerContext ledger = LedgerContext.of(ctx);
+
+        int fetched = 0;
+        String nextBookmark = "";
+        for (KeyValue result : results) {
+            if (fetched == pageSize) {
+                nextBookmark = result.getKey();
+                break;
+            }
+            fetched++;
+            Asset asset = assetCodec.decode(result.getValue());
+            if (asset == null || !result.getKey().equals(asset.getAssetID())) {
+                continue;
+            }
+            String key = assetKey(ctx, asset.getAssetID());
+            ledger.delState(result.getKey());
+            if (ledger.exists(key)) {
+                continue;
+            }
+            ledger.putObject(key, asset, assetCodec.encode(asset));
+            if (asset.getOwner() != null) {
+                ledger.putState(ownerIndexKey(ctx, asset.getOwner(), asset.getAssetID()), INDEX_VALUE);
+            }
+            addOwnerTotal(ctx, asset.getOwner(), asset.getValue());
+            migrated++;
+        }
+        // Rewriting the marker would conflict with every transaction that read it
+        if (nextBookmark.isEmpty() && !ledger.exists(migratedKey(ctx))) {
+            ledger.putState(migratedKey(ctx), INDEX_VALUE);
+        }
+
+        TransactionLog.info(ctx, "legacy_assets.migrated", "count", migrated);
 
+        Map<String, Object> progress = new LinkedHashMap<>();
+        progress.put("migratedCount", migrated);
+        progress.put("fetchedRecordsCount", fetched);
+        progress.put("bookmark", nextBookmark);
+        return genson.serialize(progress);
+    }
+
+    /**
+     * Look an asset up under its composite key, falling back to the legacy
+     * key until MigrateLegacyAssets has completed.
+     */
+    private Asset findAsset(final Context ctx, final String assetID) {
+        Asset asset = currentAsset(ctx, assetID);
+        return asset != null ? asset : findLegacyAsset(ctx, assetID);
+    }
+
+    /**
+     * The asset under its composite key only, as counted in the owner index and totals.
+     */
+    private Asset currentAsset(final Context ctx, final String assetID) {
+        return LedgerContext.of(ctx).getObject(assetKey(ctx, assetID), Asset.class, assetCodec::decode);
+    }
+
+    private Asset findLegacyAsset(final Context ctx, final String assetID) {
+        // The marker never changes once written, so reading it cannot conflict,
+        // and the transaction's LedgerContext reads it at most once
+        if (LedgerContext.of(ctx).exists(migratedKey(ctx))) {
+            return null;
+        }
+        Asset asset = LedgerContext.of(ctx).getObject(assetID, Asset.class, assetCodec::decode);
+        return asset == null || !assetID.equals(asset.getAssetID()) ? null : asset;
+    }
+
+    private String assetKey(final Context ctx, final String assetID) {
+        return ctx.getStub().createCompositeKey(ASSET_KEY_TYPE, assetID).toString();
+    }
+
+    private static String migratedKey(final Context ctx) {
+        return ctx.getStub().createCompositeKey(LEGACY_MIGRATED_KEY_TYPE, ASSET_KEY_TYPE).toString();
+    }
+
+    /**
+     * Record a change to an owner's total under this transaction's delta key,
+     * merging with any change already made in the same transaction. Changes
+     * that cancel out leave no key behind.
+     */
+    private void addOwnerTotal(final Context ctx, final String owner, final long delta) {
+        if (owner == null || delta == 0) {
+            return;
+        }
+        LedgerContext ledger = LedgerContext.of(ctx);
+        String deltaKey = ctx.getStub().createCompositeKey(OWNER_TOTAL_DELTA, owner, ctx.getStub().getTxId()).toString();
+        byte[] written = ledger.getWritten(deltaKey);
+        long total = delta + (written == null ? 0 : readTotal(written));
+        if (total == 0) {
+            // The key is this transaction's own, so it only exists if written above
+            if (written != null) {
+                ledger.delState(deltaKey);
+            }
+        } else {
+            ledger.putState(deltaKey, writeTotal(total));
+        }
+    }
+
+    private long sumOwnerAssets(final Context ctx, final String owner) {
+        ChaincodeStub stub = ctx.getStub();
+        long total = 0;
+        for (KeyValue entry : stub.getStateByPartialCompositeKey(new CompositeKey(OWNER_INDEX, owner))) {
+            String assetID = stub.splitCompositeKey(entry.getKey()).getAttributes().get(1);
+            Asset asset = findAsset(ctx, assetID);
+            if (asset != null) {
+                total += asset.getValue();
+            }
+        }
+        return total;
+    }
+
+    private String ownerTotalCheckpointKey(final Context ctx, final String owner) {
+        return ctx.getStub().createCompositeKey(OWNER_TOTAL_CHECKPOINT, owner).toString();
+    }
+
+    private static byte[] writeTotal(final long total) {
+        BinaryWriter writer = BinaryWriter.reusable().header();
+        writer.writeLong(total);
+        return writer.toByteArray();
+    }
+
+    private static long readTotal(final byte[] value) {
+        return BinaryReader.open(value).readLong();
+    }
+
+    private String ownerIndexKey(final Context ctx, final String owner, final String assetID) {
+        return ctx.getStub().createCompositeKey(OWNER_INDEX, owner, assetID).toString();
+    }
+
+    private void checkPageSize(final int pageSize) {
+        if (pageSize <= 0) {
+            String errorMessage = String.format("Page size must be positive, got %d", pageSize);
+            throw new ChaincodeException(errorMessage, AssetErrors.INVALID_PAGE_SIZE.toString());
+        }
+    }
+}
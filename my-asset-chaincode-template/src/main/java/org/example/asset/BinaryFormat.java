@@ -0,0 +1,22 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.example.asset;
+
+/**
+ * Binary layout of one ledger value type. Implementations only handle the
+ * body; the header is written and checked by {@link ValueCodec}.
+ */
+interface BinaryFormat<T> {
+
+    void write(T value, BinaryWriter out);
+
+    T read(BinaryReader in);
+
+    /**
+     * Copy one encoded value into a JSON list response as an object,
+     * without building the intermediate Java object.
+     */
+    void writeJson(BinaryReader in, JsonListWriter out);
+}
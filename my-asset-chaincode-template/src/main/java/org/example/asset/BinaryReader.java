@@ -0,0 +1,107 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.example.asset;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the compact binary value format written by {@link BinaryWriter}.
+ */
+final class BinaryReader {
+
+    private final byte[] buf;
+    private int pos;
+
+    private BinaryReader(final byte[] buf, final int pos) {
+        this.buf = buf;
+        this.pos = pos;
+    }
+
+    /**
+     * True if the stored value carries the binary header rather than being JSON.
+     */
+    static boolean isBinary(final byte[] value) {
+        return value.length >= 2 && value[0] == BinaryWriter.MAGIC;
+    }
+
+    /**
+     * Reader positioned after the header.
+     *
+     * @throws IllegalArgumentException if the value was written by an unknown format version
+     */
+    static BinaryReader open(final byte[] value) {
+        if (value[1] != BinaryWriter.FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported value format version " + value[1]);
+        }
+        return new BinaryReader(value, 2);
+    }
+
+    int readByte() {
+        check(1);
+        return buf[pos++] & 0xFF;
+    }
+
+    boolean readBoolean() {
+        return readByte() != 0;
+    }
+
+    long readLong() {
+        long raw = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = readByte();
+            raw |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (raw >>> 1) ^ -(raw & 1);
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in ledger value");
+    }
+
+    int readInt() {
+        int raw = readVarint();
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    String readString() {
+        int length = readVarint();
+        if (length == 0) {
+            return null;
+        }
+        length--;
+        check(length);
+        String value = new String(buf, pos, length, StandardCharsets.UTF_8);
+        pos += length;
+        return value;
+    }
+
+    String readEnumerated(final String[] values) {
+        int index = readByte();
+        if (index == 0) {
+            return readString();
+        }
+        if (index > values.length) {
+            throw new IllegalArgumentException("Unknown enumerated value " + index);
+        }
+        return values[index - 1];
+    }
+
+    private int readVarint() {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in ledger value");
+    }
+
+    private void check(final int length) {
+        if (length < 0 || pos + length > buf.length) {
+            throw new IllegalArgumentException("Truncated ledger value");
+        }
+    }
+}
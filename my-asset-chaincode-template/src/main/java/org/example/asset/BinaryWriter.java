@@ -0,0 +1,163 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.example.asset;
+
+import java.util.Arrays;
+
+/**
+ * Writes the compact binary value format.
+ *
+ * Every value starts with a two byte header: {@link #MAGIC}, which can never
+ * start a JSON document, then the format version. Fields follow in a fixed
+ * order per type: ints and longs as zigzag varints, booleans as one byte,
+ * strings as a varint of (UTF-8 length + 1) followed by the bytes, with 0
+ * meaning null. Enumerated strings take one byte holding their index + 1,
+ * or 0 followed by the string itself.
+ *
+ * Strings are encoded straight into the buffer, and each thread reuses one
+ * writer, so encoding a value allocates only the final array.
+ */
+final class BinaryWriter {
+
+    static final byte MAGIC = 0x00;
+    static final byte FORMAT_VERSION = 1;
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+    private static final ThreadLocal<BinaryWriter> REUSABLE =
+            ThreadLocal.withInitial(() -> new BinaryWriter(INITIAL_CAPACITY));
+
+    private byte[] buf;
+    private int count;
+
+    BinaryWriter(final int capacity) {
+        this.buf = new byte[capacity];
+    }
+
+    /**
+     * This thread's writer, emptied. Only valid until the next call on the same thread.
+     */
+    static BinaryWriter reusable() {
+        BinaryWriter writer = REUSABLE.get();
+        if (writer.buf.length > MAX_RETAINED_CAPACITY) {
+            writer.buf = new byte[INITIAL_CAPACITY];
+        }
+        writer.count = 0;
+        return writer;
+    }
+
+    BinaryWriter header() {
+        writeByte(MAGIC);
+        writeByte(FORMAT_VERSION);
+        return this;
+    }
+
+    void writeByte(final int b) {
+        ensureCapacity(1);
+        buf[count++] = (byte) b;
+    }
+
+    void writeBoolean(final boolean value) {
+        writeByte(value ? 1 : 0);
+    }
+
+    void writeInt(final int value) {
+        writeVarint((value << 1) ^ (value >> 31));
+    }
+
+    void writeLong(final long value) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        ensureCapacity(10);
+        while ((zigzag & ~0x7FL) != 0) {
+            buf[count++] = (byte) ((zigzag & 0x7F) | 0x80);
+            zigzag >>>= 7;
+        }
+        buf[count++] = (byte) zigzag;
+    }
+
+    void writeString(final String value) {
+        if (value == null) {
+            writeVarint(0);
+            return;
+        }
+        int length = utf8Length(value);
+        writeVarint(length + 1);
+        ensureCapacity(length);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buf[count++] = (byte) c;
+            } else if (c < 0x800) {
+                buf[count++] = (byte) (0xC0 | (c >> 6));
+                buf[count++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buf[count++] = (byte) (0xF0 | (codePoint >> 18));
+                buf[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buf[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buf[count++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogate, replaced the same way String.getBytes does
+                buf[count++] = (byte) '?';
+            } else {
+                buf[count++] = (byte) (0xE0 | (c >> 12));
+                buf[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buf[count++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    void writeEnumerated(final String value, final String[] values) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i].equals(value)) {
+                writeByte(i + 1);
+                return;
+            }
+        }
+        writeByte(0);
+        writeString(value);
+    }
+
+    private void writeVarint(int value) {
+        ensureCapacity(5);
+        while ((value & ~0x7F) != 0) {
+            buf[count++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf[count++] = (byte) value;
+    }
+
+    private static int utf8Length(final String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buf, count);
+    }
+
+    private void ensureCapacity(final int extra) {
+        if (count + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length << 1, count + extra));
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.example.asset;
+
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.hyperledger.fabric.contract.ContractRouter;
+import org.hyperledger.fabric.shim.ChaincodeServer;
+import org.hyperledger.fabric.shim.ChaincodeServerProperties;
+import org.hyperledger.fabric.shim.NettyChaincodeServer;
+
+/**
+ * Entry point for running the contracts as an external chaincode service
+ * (chaincode-as-a-service): the chaincode listens for the peer instead of
+ * the peer building and launching a container. The peer-launched
+ * {@code ContractRouter} main class is unchanged.
+ *
+ * Configured from the environment; only CORE_CHAINCODE_ID_NAME, the package
+ * ID the chaincode was installed under, is required.
+ *
+ * <ul>
+ * <li>CHAINCODE_SERVER_ADDRESS: listen address, host:port (0.0.0.0:9999)</li>
+ * <li>CHAINCODE_TLS_CERT, CHAINCODE_TLS_KEY: PEM files enabling TLS;
+ * CHAINCODE_TLS_KEY_PASSWORD if the key is encrypted</li>
+ * <li>CHAINCODE_CLIENT_CA_CERT: PEM file of CAs for peer client certificates,
+ * enabling mutual TLS</li>
+ * <li>CHAINCODE_MAX_INBOUND_MESSAGE_SIZE, CHAINCODE_MAX_INBOUND_METADATA_SIZE: bytes
+ * (100 MiB, 100 MiB)</li>
+ * <li>CHAINCODE_KEEPALIVE_TIME_MINUTES, CHAINCODE_KEEPALIVE_TIMEOUT_SECONDS: pings
+ * from this server (1, 20)</li>
+ * <li>CHAINCODE_PERMIT_KEEPALIVE_TIME_MINUTES, CHAINCODE_PERMIT_KEEPALIVE_WITHOUT_CALLS:
+ * pings accepted from the peer (1, true)</li>
+ * <li>CHAINCODE_MAX_CONNECTION_AGE_SECONDS: (5)</li>
+ * <li>CHAINCODE_WORKER_THREADS, CHAINCODE_WORKER_QUEUE_SIZE: threads executing
+ * transactions and the backlog they take from (the shim's 5 and 5000)</li>
+ * <li>CHAINCODE_DRAIN_TIMEOUT_SECONDS: how long shutdown waits for running
+ * transactions (30)</li>
+ * <li>CHAINCODE_METRICS_PORT: see {@link TransactionMetrics}</li>
+ * </ul>
+ *
+ * On SIGTERM new transactions are refused, running ones are given the drain
+ * timeout to finish, and only then is the peer connection closed.
+ */
+public final class ChaincodeService {
+
+    private static final String DEFAULT_ADDRESS = "0.0.0.0:9999";
+
+    private static final int DEFAULT_MAX_INBOUND_SIZE = 100 * 1024 * 1024;
+
+    private ChaincodeService() {
+    }
+
+    public static void main(final String[] args) throws Exception {
+        Map<String, String> env = System.getenv();
+
+        ContractRouter router = new ContractRouter(args);
+        MeteredChaincode chaincode = new MeteredChaincode(router, args);
+        configureWorkers(chaincode.getChaincodeConfig(), env);
+        ChaincodeServer server = new NettyChaincodeServer(chaincode, serverProperties(env));
+
+        long drainMillis = TimeUnit.SECONDS.toMillis(intValue(env, "CHAINCODE_DRAIN_TIMEOUT_SECONDS", 30));
+        TransactionLog.detachShutdownHook();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> shutdown(server, drainMillis), "chaincode-drain"));
+
+        TransactionMetrics.startServer();
+        TransactionLog.info(null, "service.starting", "address", value(env, "CHAINCODE_SERVER_ADDRESS", DEFAULT_ADDRESS));
+        router.startRouterWithChaincodeServer(server);
+    }
+
+    static ChaincodeServerProperties serverProperties(final Map<String, String> env) {
+        ChaincodeServerProperties properties = new ChaincodeServerProperties();
+        properties.setServerAddress(address(value(env, "CHAINCODE_SERVER_ADDRESS", DEFAULT_ADDRESS)));
+        properties.setMaxInboundMessageSize(intValue(env, "CHAINCODE_MAX_INBOUND_MESSAGE_SIZE", DEFAULT_MAX_INBOUND_SIZE));
+        properties.setMaxInboundMetadataSize(intValue(env, "CHAINCODE_MAX_INBOUND_METADATA_SIZE", DEFAULT_MAX_INBOUND_SIZE));
+        properties.setKeepAliveTimeMinutes(intValue(env, "CHAINCODE_KEEPALIVE_TIME_MINUTES", 1));
+        properties.setKeepAliveTimeoutSeconds(intValue(env, "CHAINCODE_KEEPALIVE_TIMEOUT_SECONDS", 20));
+        properties.setPermitKeepAliveTimeMinutes(intValue(env, "CHAINCODE_PERMIT_KEEPALIVE_TIME_MINUTES", 1));
+        properties.setPermitKeepAliveWithoutCalls(
+                Boolean.parseBoolean(value(env, "CHAINCODE_PERMIT_KEEPALIVE_WITHOUT_CALLS", "true")));
+        properties.setMaxConnectionAgeSeconds(intValue(env, "CHAINCODE_MAX_CONNECTION_AGE_SECONDS", 5));
+
+        String cert = value(env, "CHAINCODE_TLS_CERT", null);
+        String key = value(env, "CHAINCODE_TLS_KEY", null);
+        if (cert != null || key != null) {
+            if (cert == null || key == null) {
+                throw new IllegalArgumentException("CHAINCODE_TLS_CERT and CHAINCODE_TLS_KEY must be set together");
+            }
+            properties.setTlsEnabled(true);
+            properties.setKeyCertChainFile(cert);
+            properties.setKeyFile(key);
+            properties.setKeyPassword(value(env, "CHAINCODE_TLS_KEY_PASSWORD", null));
+            properties.setTrustCertCollectionFile(value(env, "CHAINCODE_CLIENT_CA_CERT", null));
+        }
+        properties.validate();
+        return properties;
+    }
+
+    /**
+     * The shim sizes its transaction thread pool from the TP_ entries of the
+     * chaincode config when the peer connects.
+     */
+    static void configureWorkers(final Properties config, final Map<String, String> env) {
+        int threads = intValue(env, "CHAINCODE_WORKER_THREADS", 0);
+        if (threads > 0) {
+            config.setProperty("TP_CORE_POOL_SIZE", Integer.toString(threads));
+            config.setProperty("TP_MAX_POOL_SIZE", Integer.toString(threads));
+        }
+        int queue = intValue(env, "CHAINCODE_WORKER_QUEUE_SIZE", 0);
+        if (queue > 0) {
+            config.setProperty("TP_QUEUE_SIZE", Integer.toString(queue));
+        }
+    }
+
+    private static void shutdown(final ChaincodeServer server, final long drainMillis) {
+        TransactionLog.info(null, "service.draining", "inFlight", InFlightTransactions.size());
+        try {
+            if (!InFlightTransactions.drain(drainMillis)) {
+                TransactionLog.warning(null, "service.drain_timeout", "inFlight", InFlightTransactions.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        server.stop();
+        TransactionMetrics.stopServer();
+        TransactionLog.info(null, "service.stopped", "inFlight", InFlightTransactions.size());
+        TransactionLog.shutdown();
+    }
+
+    private static InetSocketAddress address(final String hostPort) {
+        int separator = hostPort.lastIndexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("CHAINCODE_SERVER_ADDRESS must be host:port, got " + hostPort);
+        }
+        String host = hostPort.substring(0, separator);
+        int port = Integer.parseInt(hostPort.substring(separator + 1));
+        return host.isEmpty() ? new InetSocketAddress(port) : new InetSocketAddress(host, port);
+    }
+
+    private static String value(final Map<String, String> env, final String name, final String defaultValue) {
+        String value = env.get(name);
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+    }
+
+    private static int intValue(final Map<String, String> env, final String name, final int defaultValue) {
+        String value = value(env, name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed <= 0) {
+                throw new IllegalArgumentException(name + " must be positive, got " + value);
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " is not a number: " + value, e);
+        }
+    }
+}
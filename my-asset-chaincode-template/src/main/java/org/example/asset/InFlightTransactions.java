@@ -0,0 +1,66 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.example.asset;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.hyperledger.fabric.shim.ChaincodeException;
+
+/**
+ * Transactions currently executing in this JVM, so that a shutdown can let
+ * them finish before the chaincode server closes the peer connection.
+ * Entries are added and removed by {@link TransactionMetrics}, which closes
+ * out failed transactions as well as successful ones.
+ */
+final class InFlightTransactions {
+
+    private static final Set<LedgerContext> RUNNING = ConcurrentHashMap.newKeySet();
+
+    private static volatile boolean draining;
+
+    private InFlightTransactions() {
+    }
+
+    /**
+     * Register a starting transaction, or refuse it once draining has begun so
+     * the client can endorse elsewhere.
+     */
+    static void begin(final LedgerContext ctx) {
+        if (draining) {
+            throw new ChaincodeException("Chaincode is shutting down", "UNAVAILABLE");
+        }
+        RUNNING.add(ctx);
+    }
+
+    static void end(final LedgerContext ctx) {
+        RUNNING.remove(ctx);
+    }
+
+    static int size() {
+        return RUNNING.size();
+    }
+
+    /**
+     * Refuse new transactions and wait for the running ones to finish.
+     *
+     * @param timeoutMillis how long to wait at most
+     * @return true if every transaction finished in time
+     */
+    static boolean drain(final long timeoutMillis) throws InterruptedException {
+        draining = true;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (true) {
+            if (RUNNING.isEmpty()) {
+                return true;
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            Thread.sleep(50);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.example.asset;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Builds JSON list responses by splicing the stored JSON bytes of each
+ * ledger value straight into one output buffer, so list queries never
+ * deserialize and reserialize the records they return.
+ */
+final class JsonListWriter {
+
+    /**
+     * Starting buffer size. Pages grow by doubling rather than being sized
+     * up front, since the page size is chosen by the client.
+     */
+    private static final int INITIAL_CAPACITY = 4096;
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private byte[] buf;
+    private int count;
+    private int elements;
+    private boolean open;
+    private int objectFields = -1;
+
+    private JsonListWriter() {
+        this.buf = new byte[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Writer for a plain JSON array of unknown length.
+     */
+    static JsonListWriter array() {
+        return new JsonListWriter().beginArray();
+    }
+
+    /**
+     * Writer for a paginated response. The records array is opened straight
+     * away and closed by {@link #endPage}.
+     */
+    static JsonListWriter page() {
+        JsonListWriter writer = new JsonListWriter();
+        writer.writeAscii("{\"records\":");
+        return writer.beginArray();
+    }
+
+    private JsonListWriter beginArray() {
+        writeByte('[');
+        open = true;
+        return this;
+    }
+
+    /**
+     * Append one stored JSON value as the next array element.
+     */
+    JsonListWriter append(final byte[] json) {
+        if (!open) {
+            throw new IllegalStateException("List already closed");
+        }
+        if (elements++ > 0) {
+            writeByte(',');
+        }
+        ensureCapacity(json.length);
+        System.arraycopy(json, 0, buf, count, json.length);
+        count += json.length;
+        return this;
+    }
+
+    /**
+     * Start an array element that is built field by field, for values that
+     * are not stored as JSON. Null string fields are omitted, as Genson does.
+     */
+    JsonListWriter beginObject() {
+        if (!open) {
+            throw new IllegalStateException("List already closed");
+        }
+        if (elements++ > 0) {
+            writeByte(',');
+        }
+        writeByte('{');
+        objectFields = 0;
+        return this;
+    }
+
+    JsonListWriter field(final String name, final String value) {
+        if (value != null) {
+            fieldName(name);
+            writeString(value);
+        }
+        return this;
+    }
+
+    JsonListWriter field(final String name, final int value) {
+        fieldName(name);
+        writeAscii(Integer.toString(value));
+        return this;
+    }
+
+    JsonListWriter field(final String name, final long value) {
+        fieldName(name);
+        writeAscii(Long.toString(value));
+        return this;
+    }
+
+    JsonListWriter field(final String name, final boolean value) {
+        fieldName(name);
+        writeAscii(value ? "true" : "false");
+        return this;
+    }
+
+    JsonListWriter endObject() {
+        writeByte('}');
+        objectFields = -1;
+        return this;
+    }
+
+    private void fieldName(final String name) {
+        if (objectFields < 0) {
+            throw new IllegalStateException("No object started");
+        }
+        if (objectFields++ > 0) {
+            writeByte(',');
+        }
+        writeString(name);
+        writeByte(':');
+    }
+
+    /**
+     * Number of values appended so far.
+     */
+    int size() {
+        return elements;
+    }
+
+    /**
+     * Close a writer created by {@link #array()} and return the JSON text.
+     */
+    String end() {
+        closeArray();
+        return toJson();
+    }
+
+    /**
+     * Close a writer created by {@link #page()} and return the JSON text.
+     */
+    String endPage(final int fetchedRecordsCount, final String bookmark) {
+        closeArray();
+        writeAscii(",\"fetchedRecordsCount\":");
+        writeAscii(Integer.toString(fetchedRecordsCount));
+        writeAscii(",\"bookmark\":");
+        writeString(bookmark == null ? "" : bookmark);
+        writeByte('}');
+        return toJson();
+    }
+
+    private void closeArray() {
+        if (open) {
+            writeByte(']');
+            open = false;
+        }
+    }
+
+    private String toJson() {
+        return new String(buf, 0, count, StandardCharsets.UTF_8);
+    }
+
+    private void writeString(final String value) {
+        writeByte('"');
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        ensureCapacity(utf8.length);
+        for (byte b : utf8) {
+            if (b == '"' || b == '\\') {
+                writeByte('\\');
+                writeByte(b);
+            } else if (b >= 0 && b < 0x20) {
+                writeAscii("\\u00");
+                writeByte(HEX[b >> 4]);
+                writeByte(HEX[b & 0xF]);
+            } else {
+                writeByte(b);
+            }
+        }
+        writeByte('"');
+    }
+
+    private void writeAscii(final String text) {
+        ensureCapacity(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            buf[count++] = (byte) text.charAt(i);
+        }
+    }
+
+    private void writeByte(final int b) {
+        ensureCapacity(1);
+        buf[count++] = (byte) b;
+    }
+
+    private void ensureCapacity(final int extra) {
+        if (count + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length << 1, count + extra));
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.example.asset;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+
+/**
+ * Transaction context with a read-through cache and a write overlay.
+ *
+ * Each key is fetched from the peer at most once per transaction, decoded
+ * objects are kept alongside the raw bytes, and reads see the writes made
+ * earlier in the same transaction (the peer itself only returns committed
+ * state). Writes and deletes are still sent to the stub straight away.
+ *
+ * Objects returned by {@link #getObject} are shared with the cache: after
+ * changing one, write it back with {@link #putObject}.
+ *
+ * The keys written are reported at the end of the transaction by
+ * {@link #emitChanges}, as a chaincode event with a binary payload: the
+ * {@link BinaryWriter} header, the number of keys, then for each key in
+ * sorted order one byte (0 = put, 1 = delete) and the key as a string.
+ */
+class LedgerContext extends Context {
+
+    /**
+     * Marks a key deleted in this transaction.
+     */
+    private static final byte[] DELETED = new byte[0];
+
+    private final Map<String, byte[]> committed = new HashMap<>();
+    private final TreeMap<String, byte[]> overlay = new TreeMap<>();
+    private final Map<String, Object> objects = new HashMap<>();
+
+    private long startNanos;
+
+    LedgerContext(final ChaincodeStub stub) {
+        super(stub);
+    }
+
+    /**
+     * The ledger context for a transaction. Contexts not created through
+     * {@code createContext} get a fresh, uncached wrapper around their stub.
+     */
+    static LedgerContext of(final Context ctx) {
+        if (ctx instanceof LedgerContext) {
+            return (LedgerContext) ctx;
+        }
+        return new LedgerContext(ctx.getStub());
+    }
+
+    /**
+     * When the transaction started, see {@link TransactionMetrics}; 0 if not timed.
+     */
+    long getStartNanos() {
+        return startNanos;
+    }
+
+    void setStartNanos(final long startNanos) {
+        this.startNanos = startNanos;
+    }
+
+    /**
+     * Read a value, seeing this transaction's own writes.
+     *
+     * @return the value, or null if the key does not exist
+     */
+    byte[] getState(final String key) {
+        byte[] written = overlay.get(key);
+        if (written != null) {
+            return written == DELETED ? null : written;
+        }
+        if (committed.containsKey(key)) {
+            return committed.get(key);
+        }
+        byte[] value = getStub().getState(key);
+        if (value != null && value.length == 0) {
+            value = null;
+        }
+        committed.put(key, value);
+        return value;
+    }
+
+    /**
+     * The value this transaction has written to a key, without reading the peer.
+     *
+     * @return the value, or null if the key has not been written or was deleted
+     */
+    byte[] getWritten(final String key) {
+        byte[] written = overlay.get(key);
+        return written == DELETED ? null : written;
+    }
+
+    /**
+     * Apply this transaction's writes under a key prefix to the results of a
+     * range scan, which the peer returns without them.
+     */
+    void mergeWrites(final String prefix, final Map<String, byte[]> scanned) {
+        for (Map.Entry<String, byte[]> write : overlay.tailMap(prefix).entrySet()) {
+            if (!write.getKey().startsWith(prefix)) {
+                break;
+            }
+            if (write.getValue() == DELETED) {
+                scanned.remove(write.getKey());
+            } else {
+                scanned.put(write.getKey(), write.getValue());
+            }
+        }
+    }
+
+    boolean exists(final String key) {
+        return getState(key) != null;
+    }
+
+    /**
+     * Read and decode a value, decoding each key at most once per transaction.
+     *
+     * @return the decoded object, or null if the key does not exist
+     */
+    <T> T getObject(final String key, final Class<T> type, final Function<byte[], T> decoder) {
+        Object cached = objects.get(key);
+        if (type.isInstance(cached)) {
+            return type.cast(cached);
+        }
+        byte[] value = getState(key);
+        if (value == null) {
+            return null;
+        }
+        T object = decoder.apply(value);
+        objects.put(key, object);
+        return object;
+    }
+
+    void putState(final String key, final byte[] value) {
+        getStub().putState(key, value);
+        overlay.put(key, value);
+        objects.remove(key);
+    }
+
+    /**
+     * Write an object together with its encoded form, keeping it cached.
+     */
+    void putObject(final String key, final Object object, final byte[] value) {
+        putState(key, value);
+        objects.put(key, object);
+    }
+
+    void delState(final String key) {
+        getStub().delState(key);
+        overlay.put(key, DELETED);
+        objects.remove(key);
+    }
+
+    /**
+     * Set a chaincode event listing every key written or deleted through this
+     * context. A transaction can carry only one event, so batches coalesce
+     * into a single one; read-only transactions emit nothing.
+     */
+    void emitChanges(final String eventName) {
+        if (overlay.isEmpty()) {
+            return;
+        }
+        // Sorted keys keep the payload identical on every endorsing peer
+        BinaryWriter writer = BinaryWriter.reusable().header();
+        writer.writeInt(overlay.size());
+        for (Map.Entry<String, byte[]> write : overlay.entrySet()) {
+            writer.writeByte(write.getValue() == DELETED ? 1 : 0);
+            writer.writeString(write.getKey());
+        }
+        getStub().setEvent(eventName, writer.toByteArray());
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.example.asset;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SHA-256 Merkle tree over the releases of one package, with inclusion
+ * proofs that clients can check offline. Leaves are in the order releases
+ * joined the tree: the releases found on the ledger when the tree was first
+ * built, in semver order, then each batch CommitPackageRoot folds in, ordered
+ * by the ID of the transaction that queued the release and then by version.
+ *
+ * <ul>
+ * <li>a leaf is SHA-256(0x00, field(version), field(fileHash), field(status)),
+ * where field(s) is the 4-byte big-endian UTF-8 length of s followed by the
+ * bytes, and a null field is written as an empty one;</li>
+ * <li>an inner node is SHA-256(0x01, left, right);</li>
+ * <li>each level pairs nodes from the left; an odd last node is carried up
+ * to the next level unchanged;</li>
+ * <li>the root of an empty package is SHA-256 of no input.</li>
+ * </ul>
+ *
+ * A proof for leaf i of n lists the sibling hashes from the leaf upwards.
+ * To check it, walk up with (i, n): if i is the odd last node (i == n - 1 and
+ * n is odd) carry the hash up without consuming a sibling, otherwise hash
+ * with the next sibling on the left when i is odd and on the right when i
+ * is even; then i = i / 2, n = (n + 1) / 2, until n == 1.
+ *
+ * Adding or changing leaf i only changes the nodes on its path to the root,
+ * so the contract stores every node and updates a path in O(log n) reads and
+ * writes, walking the levels with the same (i, n) rule.
+ */
+final class MerkleTree {
+
+    private static final byte LEAF_PREFIX = 0x00;
+    private static final byte NODE_PREFIX = 0x01;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final List<byte[][]> levels = new ArrayList<>();
+
+    MerkleTree(final List<byte[]> leaves) {
+        MessageDigest digest = sha256();
+        byte[][] level = leaves.toArray(new byte[0][]);
+        levels.add(level);
+        while (level.length > 1) {
+            byte[][] parent = new byte[(level.length + 1) / 2][];
+            for (int i = 0; i < parent.length; i++) {
+                int left = i * 2;
+                parent[i] = left + 1 == level.length ? level[left] : node(digest, level[left], level[left + 1]);
+            }
+            levels.add(parent);
+            level = parent;
+        }
+    }
+
+    /**
+     * Leaf hash of one release.
+     */
+    static byte[] leaf(final String version, final String fileHash, final String status) {
+        MessageDigest digest = sha256();
+        digest.update(LEAF_PREFIX);
+        field(digest, version);
+        field(digest, fileHash);
+        field(digest, status);
+        return digest.digest();
+    }
+
+    /**
+     * Inner node hash over two children.
+     */
+    static byte[] node(final byte[] left, final byte[] right) {
+        return node(sha256(), left, right);
+    }
+
+    /**
+     * Root of a tree with no leaves.
+     */
+    static byte[] emptyRoot() {
+        return sha256().digest();
+    }
+
+    int size() {
+        return levels.get(0).length;
+    }
+
+    /**
+     * Number of levels, leaves included; the last one holds the root.
+     */
+    int height() {
+        return levels.size();
+    }
+
+    /**
+     * The nodes of one level, leaves at depth 0. Not to be modified.
+     */
+    byte[][] level(final int depth) {
+        return levels.get(depth);
+    }
+
+    byte[] root() {
+        byte[][] top = levels.get(levels.size() - 1);
+        return top.length == 0 ? emptyRoot() : top[0];
+    }
+
+    /**
+     * Sibling hashes from leaf {@code index} up to the root.
+     */
+    List<byte[]> proof(final int index) {
+        List<byte[]> path = new ArrayList<>(levels.size());
+        int i = index;
+        for (int depth = 0; depth < levels.size() - 1; depth++) {
+            byte[][] level = levels.get(depth);
+            int sibling = (i & 1) == 0 ? i + 1 : i - 1;
+            if (sibling < level.length) {
+                path.add(level[sibling]);
+            }
+            i >>= 1;
+        }
+        return path;
+    }
+
+    static String hex(final byte[] hash) {
+        char[] text = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            text[i * 2] = HEX[(hash[i] >> 4) & 0xF];
+            text[i * 2 + 1] = HEX[hash[i] & 0xF];
+        }
+        return new String(text);
+    }
+
+    private static byte[] node(final MessageDigest digest, final byte[] left, final byte[] right) {
+        digest.update(NODE_PREFIX);
+        digest.update(left);
+        digest.update(right);
+        return digest.digest();
+    }
+
+    private static void field(final MessageDigest digest, final String value) {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        int length = bytes.length;
+        digest.update((byte) (length >>> 24));
+        digest.update((byte) (length >>> 16));
+        digest.update((byte) (length >>> 8));
+        digest.update((byte) length);
+        digest.update(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
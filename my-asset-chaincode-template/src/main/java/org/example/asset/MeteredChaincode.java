@@ -0,0 +1,54 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.example.asset;
+
+import org.hyperledger.fabric.contract.ContractRouter;
+import org.hyperledger.fabric.shim.ChaincodeBase;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+
+/**
+ * The contract router as the chaincode service hands it to the peer
+ * connection. Once the router has answered a transaction, however it
+ * ended, the transaction's metrics and in-flight entry are closed out
+ * with {@link TransactionMetrics#completed}; a transaction that threw
+ * never reaches the contracts' afterTransaction.
+ *
+ * The peer connection reads the chaincode ID and thread pool settings from
+ * this object rather than the router, so it parses the same environment
+ * and arguments.
+ */
+final class MeteredChaincode extends ChaincodeBase {
+
+    private final ContractRouter router;
+
+    MeteredChaincode(final ContractRouter router, final String[] args) {
+        this.router = router;
+        processEnvironmentOptions();
+        processCommandLineOptions(args);
+        validateOptions();
+    }
+
+    @Override
+    public Response init(final ChaincodeStub stub) {
+        Response response = null;
+        try {
+            response = router.init(stub);
+            return response;
+        } finally {
+            TransactionMetrics.completed(response);
+        }
+    }
+
+    @Override
+    public Response invoke(final ChaincodeStub stub) {
+        Response response = null;
+        try {
+            response = router.invoke(stub);
+            return response;
+        } finally {
+            TransactionMetrics.completed(response);
+        }
+    }
+}
@@ -0,0 +1,374 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.example.asset;
+
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.hyperledger.fabric.protos.peer.ChaincodeEvent;
+import org.hyperledger.fabric.protos.peer.QueryResponseMetadata;
+import org.hyperledger.fabric.protos.peer.SignedProposal;
+import org.hyperledger.fabric.shim.Chaincode.Response;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+import org.hyperledger.fabric.shim.ledger.KeyModification;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIteratorWithMetadata;
+
+/**
+ * Stub wrapper that counts one transaction's state reads, writes, scanned
+ * rows and value bytes, for {@link TransactionMetrics}. Counting is plain
+ * field arithmetic; the totals are published once, when the transaction ends.
+ */
+final class MeteredChaincodeStub implements ChaincodeStub {
+
+    private final ChaincodeStub stub;
+
+    private long stateReads;
+    private long stateWrites;
+    private long scannedRows;
+    private long bytesRead;
+    private long bytesWritten;
+
+    MeteredChaincodeStub(final ChaincodeStub stub) {
+        this.stub = stub;
+    }
+
+    long getStateReads() {
+        return stateReads;
+    }
+
+    long getStateWrites() {
+        return stateWrites;
+    }
+
+    long getScannedRows() {
+        return scannedRows;
+    }
+
+    long getBytesRead() {
+        return bytesRead;
+    }
+
+    long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    // Counted state access
+
+    @Override
+    public byte[] getState(final String key) {
+        return read(stub.getState(key));
+    }
+
+    @Override
+    public void putState(final String key, final byte[] value) {
+        written(value);
+        stub.putState(key, value);
+    }
+
+    @Override
+    public void delState(final String key) {
+        stateWrites++;
+        stub.delState(key);
+    }
+
+    @Override
+    public byte[] getPrivateData(final String collection, final String key) {
+        return read(stub.getPrivateData(collection, key));
+    }
+
+    @Override
+    public void putPrivateData(final String collection, final String key, final byte[] value) {
+        written(value);
+        stub.putPrivateData(collection, key, value);
+    }
+
+    @Override
+    public void delPrivateData(final String collection, final String key) {
+        stateWrites++;
+        stub.delPrivateData(collection, key);
+    }
+
+    @Override
+    public void purgePrivateData(final String collection, final String key) {
+        stateWrites++;
+        stub.purgePrivateData(collection, key);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByRange(final String startKey, final String endKey) {
+        return rows(stub.getStateByRange(startKey, endKey));
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getStateByRangeWithPagination(
+            final String startKey, final String endKey, final int pageSize, final String bookmark) {
+        return rows(stub.getStateByRangeWithPagination(startKey, endKey, pageSize, bookmark));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(final String compositeKey) {
+        return rows(stub.getStateByPartialCompositeKey(compositeKey));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(final String objectType,
+                                                                        final String... attributes) {
+        return rows(stub.getStateByPartialCompositeKey(objectType, attributes));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(final CompositeKey compositeKey) {
+        return rows(stub.getStateByPartialCompositeKey(compositeKey));
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getStateByPartialCompositeKeyWithPagination(
+            final CompositeKey compositeKey, final int pageSize, final String bookmark) {
+        return rows(stub.getStateByPartialCompositeKeyWithPagination(compositeKey, pageSize, bookmark));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getQueryResult(final String query) {
+        return rows(stub.getQueryResult(query));
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getQueryResultWithPagination(
+            final String query, final int pageSize, final String bookmark) {
+        return rows(stub.getQueryResultWithPagination(query, pageSize, bookmark));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyModification> getHistoryForKey(final String key) {
+        QueryResultsIterator<KeyModification> results = stub.getHistoryForKey(key);
+        return new QueryResultsIterator<KeyModification>() {
+            @Override
+            public Iterator<KeyModification> iterator() {
+                return counted(results.iterator(), KeyModification::getValue);
+            }
+
+            @Override
+            public void close() throws Exception {
+                results.close();
+            }
+        };
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByRange(final String collection,
+                                                                final String startKey, final String endKey) {
+        return rows(stub.getPrivateDataByRange(collection, startKey, endKey));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByPartialCompositeKey(final String collection,
+                                                                              final String compositeKey) {
+        return rows(stub.getPrivateDataByPartialCompositeKey(collection, compositeKey));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByPartialCompositeKey(final String collection,
+                                                                              final CompositeKey compositeKey) {
+        return rows(stub.getPrivateDataByPartialCompositeKey(collection, compositeKey));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByPartialCompositeKey(final String collection,
+                                                                              final String objectType,
+                                                                              final String... attributes) {
+        return rows(stub.getPrivateDataByPartialCompositeKey(collection, objectType, attributes));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataQueryResult(final String collection, final String query) {
+        return rows(stub.getPrivateDataQueryResult(collection, query));
+    }
+
+    private byte[] read(final byte[] value) {
+        stateReads++;
+        if (value != null) {
+            bytesRead += value.length;
+        }
+        return value;
+    }
+
+    private void written(final byte[] value) {
+        stateWrites++;
+        if (value != null) {
+            bytesWritten += value.length;
+        }
+    }
+
+    private QueryResultsIterator<KeyValue> rows(final QueryResultsIterator<KeyValue> results) {
+        return new QueryResultsIterator<KeyValue>() {
+            @Override
+            public Iterator<KeyValue> iterator() {
+                return counted(results.iterator(), KeyValue::getValue);
+            }
+
+            @Override
+            public void close() throws Exception {
+                results.close();
+            }
+        };
+    }
+
+    private QueryResultsIteratorWithMetadata<KeyValue> rows(final QueryResultsIteratorWithMetadata<KeyValue> results) {
+        return new QueryResultsIteratorWithMetadata<KeyValue>() {
+            @Override
+            public QueryResponseMetadata getMetadata() {
+                return results.getMetadata();
+            }
+
+            @Override
+            public Iterator<KeyValue> iterator() {
+                return counted(results.iterator(), KeyValue::getValue);
+            }
+
+            @Override
+            public void close() throws Exception {
+                results.close();
+            }
+        };
+    }
+
+    private <T> Iterator<T> counted(final Iterator<T> rows, final Function<T, byte[]> value) {
+        return new Iterator<T>() {
+            @Override
+            public boolean hasNext() {
+                return rows.hasNext();
+            }
+
+            @Override
+            public T next() {
+                T row = rows.next();
+                scannedRows++;
+                byte[] bytes = value.apply(row);
+                if (bytes != null) {
+                    bytesRead += bytes.length;
+                }
+                return row;
+            }
+        };
+    }
+
+    // Plain delegation
+
+    @Override
+    public List<byte[]> getArgs() {
+        return stub.getArgs();
+    }
+
+    @Override
+    public List<String> getStringArgs() {
+        return stub.getStringArgs();
+    }
+
+    @Override
+    public String getFunction() {
+        return stub.getFunction();
+    }
+
+    @Override
+    public List<String> getParameters() {
+        return stub.getParameters();
+    }
+
+    @Override
+    public String getTxId() {
+        return stub.getTxId();
+    }
+
+    @Override
+    public String getChannelId() {
+        return stub.getChannelId();
+    }
+
+    @Override
+    public Response invokeChaincode(final String chaincodeName, final List<byte[]> args, final String channel) {
+        return stub.invokeChaincode(chaincodeName, args, channel);
+    }
+
+    @Override
+    public byte[] getStateValidationParameter(final String key) {
+        return stub.getStateValidationParameter(key);
+    }
+
+    @Override
+    public void setStateValidationParameter(final String key, final byte[] value) {
+        stub.setStateValidationParameter(key, value);
+    }
+
+    @Override
+    public CompositeKey createCompositeKey(final String objectType, final String... attributes) {
+        return stub.createCompositeKey(objectType, attributes);
+    }
+
+    @Override
+    public CompositeKey splitCompositeKey(final String compositeKey) {
+        return stub.splitCompositeKey(compositeKey);
+    }
+
+    @Override
+    public byte[] getPrivateDataHash(final String collection, final String key) {
+        return stub.getPrivateDataHash(collection, key);
+    }
+
+    @Override
+    public byte[] getPrivateDataValidationParameter(final String collection, final String key) {
+        return stub.getPrivateDataValidationParameter(collection, key);
+    }
+
+    @Override
+    public void setPrivateDataValidationParameter(final String collection, final String key, final byte[] value) {
+        stub.setPrivateDataValidationParameter(collection, key, value);
+    }
+
+    @Override
+    public void setEvent(final String name, final byte[] payload) {
+        stub.setEvent(name, payload);
+    }
+
+    @Override
+    public ChaincodeEvent getEvent() {
+        return stub.getEvent();
+    }
+
+    @Override
+    public SignedProposal getSignedProposal() {
+        return stub.getSignedProposal();
+    }
+
+    @Override
+    public Instant getTxTimestamp() {
+        return stub.getTxTimestamp();
+    }
+
+    @Override
+    public byte[] getCreator() {
+        return stub.getCreator();
+    }
+
+    @Override
+    public Map<String, byte[]> getTransient() {
+        return stub.getTransient();
+    }
+
+    @Override
+    public byte[] getBinding() {
+        return stub.getBinding();
+    }
+
+    @Override
+    public String getMspId() {
+        return stub.getMspId();
+    }
+}
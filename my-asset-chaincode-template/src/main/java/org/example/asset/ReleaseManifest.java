@@ -0,0 +1,94 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.example.asset;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compact text encoding of a list of (packageId, version, fileHash) entries,
+ * used by the batch release functions.
+ *
+ * One entry per line, fields separated by whitespace:
+ *
+ * <pre>
+ * com.example.app 1.0.0 sha256:abc123...
+ * com.example.lib 2.3.1 sha256:def456...
+ * </pre>
+ *
+ * Blank lines and lines starting with '#' are ignored.
+ */
+final class ReleaseManifest {
+
+    static final class Entry {
+        private final String packageId;
+        private final String version;
+        private final String fileHash;
+
+        Entry(final String packageId, final String version, final String fileHash) {
+            this.packageId = packageId;
+            this.version = version;
+            this.fileHash = fileHash;
+        }
+
+        String getPackageId() {
+            return packageId;
+        }
+
+        String getVersion() {
+            return version;
+        }
+
+        String getFileHash() {
+            return fileHash;
+        }
+
+        @Override
+        public String toString() {
+            return packageId + " " + version;
+        }
+    }
+
+    private ReleaseManifest() {
+    }
+
+    /**
+     * Parse a manifest.
+     *
+     * @param manifest the manifest text
+     * @return the entries in manifest order
+     * @throws IllegalArgumentException if a line does not have exactly three fields
+     */
+    static List<Entry> parse(final String manifest) {
+        if (manifest == null || manifest.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        int lineNumber = 0;
+        int start = 0;
+        while (start <= manifest.length()) {
+            int end = manifest.indexOf('\n', start);
+            if (end < 0) {
+                end = manifest.length();
+            }
+            lineNumber++;
+            String line = manifest.substring(start, end).trim();
+            start = end + 1;
+
+            if (line.isEmpty() || line.charAt(0) == '#') {
+                continue;
+            }
+            String[] fields = line.split("\\s+");
+            if (fields.length != 3) {
+                throw new IllegalArgumentException(String.format(
+                        "Manifest line %d must have packageId, version and fileHash", lineNumber));
+            }
+            entries.add(new Entry(fields[0], fields[1], fields[2]));
+        }
+        return entries;
+    }
+}
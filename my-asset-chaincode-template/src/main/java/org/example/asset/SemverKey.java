@@ -0,0 +1,142 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.example.asset;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Order-preserving key encoding of semantic versions.
+ *
+ * Comparing two encoded versions byte by byte gives semver 2.0.0 precedence,
+ * so a range scan over release keys returns versions in semver order:
+ *
+ * <ul>
+ * <li>numbers are written as a two digit length followed by the digits,
+ * so 9 (019) sorts before 10 (0210);</li>
+ * <li>the core is followed by '~' for a release or '-' and the pre-release
+ * identifiers for a pre-release, so 1.0.0-rc.1 sorts before 1.0.0;</li>
+ * <li>pre-release identifiers are separated by '!' (below every identifier
+ * character), numeric ones are prefixed with '0' and alphanumeric ones
+ * with '1', so numeric identifiers sort first;</li>
+ * <li>build metadata is appended after a space; it does not take part in
+ * precedence but keeps such versions distinct.</li>
+ * </ul>
+ *
+ * Anything that is not a valid semantic version is kept verbatim behind an
+ * 'x' prefix, which sorts after every semantic version.
+ */
+final class SemverKey {
+
+    private static final Pattern SEMVER = Pattern.compile(
+            "(0|[1-9]\\d*)\\.(0|[1-9]\\d*)\\.(0|[1-9]\\d*)"
+            + "(?:-((?:0|[1-9]\\d*|\\d*[a-zA-Z-][0-9a-zA-Z-]*)(?:\\.(?:0|[1-9]\\d*|\\d*[a-zA-Z-][0-9a-zA-Z-]*))*))?"
+            + "(?:\\+([0-9a-zA-Z-]+(?:\\.[0-9a-zA-Z-]+)*))?");
+
+    private static final int MAX_NUMBER_DIGITS = 99;
+    private static final char NON_SEMVER_PREFIX = 'x';
+
+    private SemverKey() {
+    }
+
+    /**
+     * Encode a version for use as a key attribute.
+     */
+    static String encode(final String version) {
+        Matcher matcher = SEMVER.matcher(version);
+        if (!matcher.matches()) {
+            return NON_SEMVER_PREFIX + version;
+        }
+
+        StringBuilder key = new StringBuilder(version.length() + 12);
+        if (!appendNumber(key, matcher.group(1))
+                || !appendNumber(key.append('.'), matcher.group(2))
+                || !appendNumber(key.append('.'), matcher.group(3))) {
+            return NON_SEMVER_PREFIX + version;
+        }
+
+        String prerelease = matcher.group(4);
+        if (prerelease == null) {
+            key.append('~');
+        } else {
+            key.append('-');
+            String[] identifiers = prerelease.split("\\.");
+            for (int i = 0; i < identifiers.length; i++) {
+                if (i > 0) {
+                    key.append('!');
+                }
+                String identifier = identifiers[i];
+                if (isNumeric(identifier)) {
+                    if (!appendNumber(key.append('0'), identifier)) {
+                        return NON_SEMVER_PREFIX + version;
+                    }
+                } else {
+                    key.append('1').append(identifier);
+                }
+            }
+        }
+
+        String build = matcher.group(5);
+        if (build != null) {
+            key.append(' ').append(build);
+        }
+        return key.toString();
+    }
+
+    /**
+     * Encoded lower bound of an inclusive version range: at or below the
+     * encoding of every version with the same precedence as {@code version},
+     * whatever its build metadata.
+     */
+    static String lowerBound(final String version) {
+        return encode(withoutBuild(version));
+    }
+
+    /**
+     * Encoded upper bound of an inclusive version range: at or above the
+     * encoding of every version with the same precedence as {@code version},
+     * whatever its build metadata, and below every higher version. Build
+     * metadata characters all sort below '~'.
+     */
+    static String upperBound(final String version) {
+        String key = encode(withoutBuild(version));
+        return key.charAt(0) == NON_SEMVER_PREFIX ? key : key + " ~";
+    }
+
+    /**
+     * The pre-release part of a semantic version (e.g. "beta.3" for 2.0.0-beta.3),
+     * or null for releases and for strings that are not semantic versions.
+     */
+    static String prerelease(final String version) {
+        Matcher matcher = SEMVER.matcher(version);
+        return matcher.matches() ? matcher.group(4) : null;
+    }
+
+    private static String withoutBuild(final String version) {
+        Matcher matcher = SEMVER.matcher(version);
+        return matcher.matches() && matcher.group(5) != null ? version.substring(0, matcher.start(5) - 1) : version;
+    }
+
+    private static boolean appendNumber(final StringBuilder key, final String digits) {
+        if (digits.length() > MAX_NUMBER_DIGITS) {
+            return false;
+        }
+        if (digits.length() < 10) {
+            key.append('0');
+        }
+        key.append(digits.length()).append(digits);
+        return true;
+    }
+
+    private static boolean isNumeric(final String identifier) {
+        for (int i = 0; i < identifier.length(); i++) {
+            char c = identifier.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
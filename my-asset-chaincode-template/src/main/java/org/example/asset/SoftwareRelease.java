@@ -7,9 +7,11 @@ package org.example.asset;
 import org.hyperledger.fabric.contract.annotation.DataType;
 import org.hyperledger.fabric.contract.annotation.Property;
 import com.owlike.genson.annotation.JsonProperty;
+import org.example.asset.codegen.LedgerValue;
 import java.util.Objects;
 
 @DataType
+@LedgerValue
 public class SoftwareRelease {
 
     @Property
@@ -22,6 +24,7 @@ public class SoftwareRelease {
     private String fileHash;
 
     @Property
+    @LedgerValue.Enumerated({"ACTIVE", "DISCONTINUED"})
     private String status; // "ACTIVE" or "DISCONTINUED"
 
     @Property
@@ -4,6 +4,17 @@
 
 package org.example.asset;
 
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
 import org.hyperledger.fabric.contract.Context;
 import org.hyperledger.fabric.contract.ContractInterface;
 import org.hyperledger.fabric.contract.annotation.Contract;
@@ -13,6 +24,11 @@ import org.hyperledger.fabric.contract.annotation.License;
 import org.hyperledger.fabric.contract.annotation.Transaction;
 import org.hyperledger.fabric.shim.ChaincodeException;
 import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+import org.hyperledger.fabric.shim.ledger.KeyModification;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIteratorWithMetadata;
 import com.owlike.genson.Genson;
 
 @Contract(
@@ -29,13 +45,134 @@ import com.owlike.genson.Genson;
             name = "Software Release Admin")))
 public class SoftwareReleaseContract implements ContractInterface {
 
+    /**
+     * Composite key object type for releases, so release scans never see asset records.
+     * Releases are keyed by packageId and the {@link SemverKey} encoding of the version.
+     */
+    static final String RELEASE_KEY_TYPE = "release";
+
+    /**
+     * Index of releases by the MSP ID that published them
+     */
+    static final String PUBLISHER_INDEX = "publisher~packageId~version";
+
+    /**
+     * Index of releases by artifact hash
+     */
+    static final String HASH_INDEX = "hash~fileHash~packageId~version";
+
+    /**
+     * npm-style dist-tags; each tag key holds a copy of the tagged release
+     * so resolving a tag is a single point read
+     */
+    static final String DIST_TAG_KEY_TYPE = "disttag";
+
+    static final String LATEST_TAG = "latest";
+
+    /**
+     * Tag for pre-releases whose first identifier is numeric (e.g. 1.0.0-1)
+     */
+    static final String NEXT_TAG = "next";
+
+    /**
+     * Per-package Merkle root over (version, fileHash, status) of every
+     * release, see {@link MerkleTree}
+     */
+    static final String PACKAGE_ROOT_KEY_TYPE = "packageroot";
+
+    /**
+     * Every node of each package's Merkle tree, so folding in a change
+     * rewrites one path instead of rehashing the package. Values are the raw
+     * 32-byte hashes; depth 0 holds the leaves.
+     */
+    static final String MERKLE_NODE_KEY_TYPE = "merklenode~packageId~depth~index";
+
+    /**
+     * Leaf index of each release in its package's Merkle tree
+     */
+    static final String MERKLE_LEAF_INDEX = "merkleleaf~packageId~version";
+
+    /**
+     * Releases whose leaf is still to be added or rehashed, one entry per
+     * release and transaction so publishes never read or write shared tree
+     * keys. Folded into the tree by CommitPackageRoot.
+     */
+    static final String MERKLE_PENDING_KEY_TYPE = "merklepending~packageId~txID~version";
+
+    /**
+     * Marker written once MigrateLegacyReleases has examined the whole legacy
+     * range, keyed by the record type it migrated. Its presence turns off the
+     * legacy key fallback.
+     */
+    static final String LEGACY_MIGRATED_KEY_TYPE = "legacymigrated";
+
+    /**
+     * Chaincode event listing the keys changed by a release transaction
+     */
+    static final String CHANGE_EVENT = "ReleasesChanged";
+
+    /**
+     * Index entries carry no data, the composite key is the entry
+     */
+    private static final byte[] INDEX_VALUE = {0x00};
+
+    /**
+     * Contract label on the transaction metrics
+     */
+    private static final String CONTRACT_NAME = "SoftwareReleaseContract";
+
     private final Genson genson = new Genson();
 
+    /**
+     * Package-private so tools that seed a ledger directly write the same bytes
+     */
+    final ValueCodec<SoftwareRelease> releaseCodec =
+            new ValueCodec<>(SoftwareRelease.class, new SoftwareReleaseBinaryFormat(), ValueFormat.BINARY);
+
+    /**
+     * Use a {@link LedgerContext} so repeated reads within a transaction are served locally,
+     * over a stub that counts state access for {@link TransactionMetrics}.
+     */
+    @Override
+    public Context createContext(final ChaincodeStub stub) {
+        return new LedgerContext(new MeteredChaincodeStub(stub));
+    }
+
+    @Override
+    public void beforeTransaction(final Context ctx) {
+        TransactionMetrics.started(CONTRACT_NAME, ctx);
+    }
+
+    /**
+     * Announce every key the transaction changed in one chaincode event.
+     */
+    @Override
+    public void afterTransaction(final Context ctx, final Object result) {
+        LedgerContext.of(ctx).emitChanges(CHANGE_EVENT);
+        TransactionMetrics.succeeded(CONTRACT_NAME, ctx);
+    }
+
     private enum ReleaseErrors {
         RELEASE_NOT_FOUND,
         RELEASE_ALREADY_EXISTS,
         INVALID_HASH,
-        RELEASE_DISCONTINUED
+        RELEASE_DISCONTINUED,
+        INVALID_PAGE_SIZE,
+        INVALID_MANIFEST,
+        TAG_NOT_FOUND,
+        ROOT_NOT_FOUND,
+        INVALID_CURSOR
+    }
+
+    /**
+     * Per-entry result of a release check; the ordinal is the 2-bit code
+     * used in the VerifyLockfile bitmap.
+     */
+    private enum VerifyResult {
+        VALID,
+        MISSING,
+        HASH_MISMATCH,
+        DISCONTINUED
     }
 
     /**
@@ -55,9 +192,9 @@ public class SoftwareReleaseContract implements ContractInterface {
         
         String key = createKey(ctx, packageId, version);
 
-        if (ReleaseExists(ctx, key)) {
+        if (ReleaseExists(ctx, packageId, version)) {
+            TransactionLog.warning(ctx, "release.exists", "packageId", packageId, "version", version);
             String errorMessage = String.format("Release %s version %s already exists", packageId, version);
-            System.out.println(errorMessage);
             throw new ChaincodeException(errorMessage, ReleaseErrors.RELEASE_ALREADY_EXISTS.toString());
         }
 
@@ -65,14 +202,64 @@ public class SoftwareReleaseContract implements ContractInterface {
         String publisher = ctx.getClientIdentity().getMSPID();
 
         SoftwareRelease release = new SoftwareRelease(packageId, version, fileHash, "ACTIVE", publisher);
-        String releaseJSON = genson.serialize(release);
-        
-        ctx.getStub().putStringState(key, releaseJSON);
+        tagRelease(ctx, release, putRelease(ctx, key, release));
+        indexRelease(ctx, release);
+        queueLeaf(ctx, release);
         
-        System.out.println("Release published: " + key);
+        TransactionLog.info(ctx, "release.published", "packageId", packageId, "version", version);
         return release;
     }
 
+    /**
+     * Publish a batch of software releases in a single transaction.
+     * The batch is all-or-nothing: if any release in the manifest already
+     * exists (or is listed twice) nothing is written.
+     *
+     * @param ctx the transaction context
+     * @param manifest one "packageId version fileHash" entry per line
+     * @return JSON array of the published releases, in manifest order
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String PublishReleases(final Context ctx, final String manifest) {
+        List<ReleaseManifest.Entry> entries = parseManifest(manifest);
+
+        // Validate every entry before writing anything
+        List<String> keys = new ArrayList<>(entries.size());
+        Set<String> seen = new HashSet<>();
+        List<String> conflicts = new ArrayList<>();
+        for (ReleaseManifest.Entry entry : entries) {
+            String key = createKey(ctx, entry.getPackageId(), entry.getVersion());
+            if (!seen.add(key) || ReleaseExists(ctx, entry.getPackageId(), entry.getVersion())) {
+                conflicts.add(entry.toString());
+            }
+            keys.add(key);
+        }
+
+        if (!conflicts.isEmpty()) {
+            TransactionLog.warning(ctx, "releases.exist", "conflicts", conflicts.size());
+            String errorMessage = String.format("%d release(s) already exist: %s", conflicts.size(),
+                    String.join(", ", conflicts.subList(0, Math.min(conflicts.size(), 10))));
+            throw new ChaincodeException(errorMessage, ReleaseErrors.RELEASE_ALREADY_EXISTS.toString());
+        }
+
+        String publisher = ctx.getClientIdentity().getMSPID();
+        JsonListWriter results = JsonListWriter.array();
+
+        for (int i = 0; i < entries.size(); i++) {
+            ReleaseManifest.Entry entry = entries.get(i);
+            SoftwareRelease release = new SoftwareRelease(entry.getPackageId(), entry.getVersion(),
+                    entry.getFileHash(), "ACTIVE", publisher);
+            byte[] releaseValue = putRelease(ctx, keys.get(i), release);
+            tagRelease(ctx, release, releaseValue);
+            indexRelease(ctx, release);
+            queueLeaf(ctx, release);
+            releaseCodec.appendJson(releaseValue, results);
+        }
+
+        TransactionLog.info(ctx, "releases.published", "count", entries.size());
+        return results.end();
+    }
+
     /**
      * Discontinue a software release
      *
@@ -87,17 +274,176 @@ public class SoftwareReleaseContract implements ContractInterface {
                                             final String version) {
         
         String key = createKey(ctx, packageId, version);
-        SoftwareRelease release = getRelease(ctx, key);
+        SoftwareRelease release = getRelease(ctx, packageId, version);
 
+        boolean legacy = !LedgerContext.of(ctx).exists(key);
         release.setStatus("DISCONTINUED");
-        String releaseJSON = genson.serialize(release);
-        
-        ctx.getStub().putStringState(key, releaseJSON);
+        putRelease(ctx, key, release);
+        if (legacy) {
+            // Not migrated yet: the discontinued release moves to its composite key
+            LedgerContext.of(ctx).delState(legacyKey(packageId, version));
+            indexRelease(ctx, release);
+        }
+        untagRelease(ctx, release);
+        queueLeaf(ctx, release);
         
-        System.out.println("Release discontinued: " + key);
+        TransactionLog.info(ctx, "release.discontinued", "packageId", packageId, "version", version);
+        return release;
+    }
+
+    /**
+     * Resolve a dist-tag to the release it points at, with a single point read.
+     *
+     * A stable release is tagged "latest" when it is published, a pre-release
+     * is tagged with its first pre-release identifier (1.0.0-beta.2 tags
+     * "beta"). As with npm publish, the most recently published release wins.
+     * When the tagged release is discontinued, the tag moves to the highest
+     * remaining active release with the same tag, or is removed.
+     *
+     * @param ctx the transaction context
+     * @param packageId the package identifier
+     * @param tag the dist-tag, e.g. "latest"
+     * @return the tagged release
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public SoftwareRelease ResolveTag(final Context ctx, final String packageId, final String tag) {
+        SoftwareRelease release = LedgerContext.of(ctx).getObject(tagKey(ctx, packageId, tag),
+                SoftwareRelease.class, releaseCodec::decode);
+        if (release == null) {
+            String errorMessage = String.format("Package %s has no %s tag", packageId, tag);
+            throw new ChaincodeException(errorMessage, ReleaseErrors.TAG_NOT_FOUND.toString());
+        }
         return release;
     }
 
+    /**
+     * Get the Merkle root of a package's releases. This is the one value a
+     * client needs to check any number of inclusion proofs offline.
+     *
+     * Releases published or discontinued since the last CommitPackageRoot are
+     * folded in here without being stored, and counted in pendingCount. While
+     * it is not zero the root is provisional: the leaf positions of those
+     * releases are only fixed by the next CommitPackageRoot.
+     *
+     * @param ctx the transaction context
+     * @param packageId the package identifier
+     * @return JSON object with the packageId, the hex root, the leaf count and the pending count
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetPackageRoot(final Context ctx, final String packageId) {
+        Map<String, byte[]> tree = new HashMap<>();
+        int pending = foldPackageTree(ctx, packageId, tree).size();
+        byte[] stored = treeState(ctx, tree, packageRootKey(ctx, packageId));
+        if (stored == null) {
+            String errorMessage = String.format("Package %s has no releases", packageId);
+            throw new ChaincodeException(errorMessage, ReleaseErrors.ROOT_NOT_FOUND.toString());
+        }
+
+        BinaryReader reader = BinaryReader.open(stored);
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("packageId", packageId);
+        root.put("leafCount", reader.readInt());
+        root.put("root", reader.readString());
+        root.put("pendingCount", pending);
+        return genson.serialize(root);
+    }
+
+    /**
+     * Get inclusion proofs for releases of a package, checked against the
+     * root returned alongside them as described in {@link MerkleTree}. Each
+     * proof is read from the stored tree, a few point reads per release, with
+     * pending changes folded in as for {@link #GetPackageRoot}. Versions that
+     * are not in the tree are left out of the proofs.
+     *
+     * @param ctx the transaction context
+     * @param packageId the package identifier
+     * @param versions whitespace separated versions to prove, empty for every release
+     * @return JSON object with the root, the leaf count, the pending count and one proof per release
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetInclusionProofs(final Context ctx, final String packageId, final String versions) {
+        Map<String, byte[]> tree = new HashMap<>();
+        int pending = foldPackageTree(ctx, packageId, tree).size();
+        byte[] stored = treeState(ctx, tree, packageRootKey(ctx, packageId));
+        if (stored == null) {
+            String errorMessage = String.format("Package %s has no releases", packageId);
+            throw new ChaincodeException(errorMessage, ReleaseErrors.ROOT_NOT_FOUND.toString());
+        }
+        BinaryReader reader = BinaryReader.open(stored);
+        int leafCount = reader.readInt();
+        String root = reader.readString();
+
+        Map<String, Integer> positions = new LinkedHashMap<>();
+        if (versions == null || versions.trim().isEmpty()) {
+            ChaincodeStub stub = ctx.getStub();
+            CompositeKey prefix = new CompositeKey(MERKLE_LEAF_INDEX, packageId);
+            Map<String, byte[]> indexes = new TreeMap<>();
+            for (KeyValue result : stub.getStateByPartialCompositeKey(prefix)) {
+                indexes.put(result.getKey(), result.getValue());
+            }
+            for (Map.Entry<String, byte[]> folded : tree.entrySet()) {
+                if (folded.getKey().startsWith(prefix.toString())) {
+                    indexes.put(folded.getKey(), folded.getValue());
+                }
+            }
+            for (Map.Entry<String, byte[]> index : indexes.entrySet()) {
+                positions.put(stub.splitCompositeKey(index.getKey()).getAttributes().get(1),
+                        BinaryReader.open(index.getValue()).readInt());
+            }
+        } else {
+            for (String version : versions.trim().split("\\s+")) {
+                byte[] position = treeState(ctx, tree, leafIndexKey(ctx, packageId, version));
+                if (position != null) {
+                    positions.put(version, BinaryReader.open(position).readInt());
+                }
+            }
+        }
+
+        List<Map<String, Object>> proofs = new ArrayList<>(positions.size());
+        for (Map.Entry<String, Integer> position : positions.entrySet()) {
+            SoftwareRelease release = findRelease(ctx, packageId, position.getKey());
+            if (release == null) {
+                continue;
+            }
+            Map<String, Object> proof = new LinkedHashMap<>();
+            proof.put("version", release.getVersion());
+            proof.put("fileHash", release.getFileHash());
+            proof.put("status", release.getStatus());
+            proof.put("index", position.getValue());
+            proof.put("path", storedProof(ctx, tree, packageId, position.getValue(), leafCount));
+            proofs.add(proof);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("packageId", packageId);
+        result.put("leafCount", leafCount);
+        result.put("root", root);
+        result.put("pendingCount", pending);
+        result.put("proofs", proofs);
+        return genson.serialize(result);
+    }
+
+    /**
+     * Fold the releases published or discontinued since the last call into
+     * the package's stored Merkle tree and store the new root, one path per
+     * release. A package without a stored root, such as one whose releases
+     * were written before roots were introduced, is rebuilt from all of its
+     * releases instead.
+     *
+     * Publishes queue their leaf rather than updating the tree, so they never
+     * conflict with each other; a CommitPackageRoot that races with a publish
+     * or discontinue of the same package fails validation and can simply be
+     * retried.
+     *
+     * @param ctx the transaction context
+     * @param packageId the package identifier
+     * @return the hex root
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String CommitPackageRoot(final Context ctx, final String packageId) {
+        return commitPackageRoot(ctx, packageId);
+    }
+
     /**
      * Validate a software release
      *
@@ -113,23 +459,33 @@ public class SoftwareReleaseContract implements ContractInterface {
                                  final String version,
                                  final String fileHash) {
         
-        String key = createKey(ctx, packageId, version);
-        
-        if (!ReleaseExists(ctx, key)) {
-            return false;
-        }
-
-        SoftwareRelease release = getRelease(ctx, key);
+        return verify(ctx, packageId, version, fileHash) == VerifyResult.VALID;
+    }
 
-        if (!release.getFileHash().equals(fileHash)) {
-            return false;
-        }
+    /**
+     * Verify a whole lockfile in one call.
+     *
+     * The result is a base64-encoded bitmap holding a 2-bit code per manifest
+     * entry, four entries per byte starting at the least significant bits:
+     * 0 = valid, 1 = missing, 2 = hash mismatch, 3 = discontinued.
+     * Entry i is therefore {@code (bitmap[i / 4] >> ((i % 4) * 2)) & 3}.
+     *
+     * @param ctx the transaction context
+     * @param manifest one "packageId version fileHash" entry per line
+     * @return base64 status bitmap, one 2-bit code per entry in manifest order
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String VerifyLockfile(final Context ctx, final String manifest) {
+        List<ReleaseManifest.Entry> entries = parseManifest(manifest);
+        byte[] bitmap = new byte[(entries.size() + 3) / 4];
 
-        if ("DISCONTINUED".equals(release.getStatus())) {
-            return false; // Or throw exception if preferred, but boolean is simpler for validation check
+        for (int i = 0; i < entries.size(); i++) {
+            ReleaseManifest.Entry entry = entries.get(i);
+            VerifyResult result = verify(ctx, entry.getPackageId(), entry.getVersion(), entry.getFileHash());
+            bitmap[i >> 2] |= (byte) (result.ordinal() << ((i & 3) << 1));
         }
 
-        return true;
+        return Base64.getEncoder().encodeToString(bitmap);
     }
 
     /**
@@ -144,27 +500,672 @@ public class SoftwareReleaseContract implements ContractInterface {
     public SoftwareRelease GetRelease(final Context ctx,
                                     final String packageId,
                                     final String version) {
-        String key = createKey(ctx, packageId, version);
-        return getRelease(ctx, key);
+        return getRelease(ctx, packageId, version);
+    }
+
+    /**
+     * Get one page of the releases published by an organization.
+     * Only the publisher's index entries are scanned, so the cost follows the
+     * number of releases that organization has published.
+     *
+     * @param ctx the transaction context
+     * @param publisher the publisher's MSP ID
+     * @param pageSize maximum number of releases to return
+     * @param bookmark bookmark returned by the previous page, empty to start
+     * @return JSON string with the records, the fetched count and the next bookmark
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetReleasesByPublisher(final Context ctx,
+                                         final String publisher,
+                                         final int pageSize,
+                                         final String bookmark) {
+        checkPageSize(pageSize);
+
+        ChaincodeStub stub = ctx.getStub();
+        LedgerContext ledger = LedgerContext.of(ctx);
+        JsonListWriter page = JsonListWriter.page();
+
+        QueryResultsIteratorWithMetadata<KeyValue> results = stub.getStateByPartialCompositeKeyWithPagination(
+                new CompositeKey(PUBLISHER_INDEX, publisher), pageSize, bookmark == null ? "" : bookmark);
+
+        for (KeyValue result : results) {
+            List<String> attributes = stub.splitCompositeKey(result.getKey()).getAttributes();
+            byte[] releaseValue = ledger.getState(createKey(ctx, attributes.get(1), attributes.get(2)));
+            if (releaseValue != null) {
+                releaseCodec.appendJson(releaseValue, page);
+            }
+        }
+
+        return page.endPage(results.getMetadata().getFetchedRecordsCount(), results.getMetadata().getBookmark());
+    }
+
+    /**
+     * Find the releases whose artifact has the given hash, with a single
+     * partial composite key read over the hash index.
+     *
+     * @param ctx the transaction context
+     * @param fileHash the artifact hash, as published
+     * @return JSON array of {"packageId", "version"} objects, empty if the hash is unknown
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String LookupByHash(final Context ctx, final String fileHash) {
+        ChaincodeStub stub = ctx.getStub();
+        JsonListWriter matches = JsonListWriter.array();
+
+        QueryResultsIterator<KeyValue> results =
+                stub.getStateByPartialCompositeKey(new CompositeKey(HASH_INDEX, fileHash));
+
+        for (KeyValue result : results) {
+            List<String> attributes = stub.splitCompositeKey(result.getKey()).getAttributes();
+            matches.beginObject()
+                    .field("packageId", attributes.get(1))
+                    .field("version", attributes.get(2))
+                    .endObject();
+        }
+
+        return matches.end();
+    }
+
+    /**
+     * Get one page of the changes made to a release, newest first, with the
+     * transaction ID, timestamp and delete flag of each. Requires the peer's
+     * history database (enabled by default).
+     *
+     * The history is streamed from the peer and only the entries on the page
+     * are decoded. The cursor is the transaction ID of the last entry of the
+     * previous page; the peer cannot seek within a key's history, so later
+     * pages skip over the entries before it. A cursor that is not in the
+     * history fails with INVALID_CURSOR rather than returning an empty page.
+     *
+     * A release MigrateLegacyReleases moved keeps its earlier history under
+     * the legacy key, which follows the composite key history, so the
+     * migration appears once, as the first write to the composite key.
+     *
+     * @param ctx the transaction context
+     * @param packageId the package identifier
+     * @param version the version string
+     * @param pageSize maximum number of entries to return
+     * @param cursor cursor returned by the previous page, empty to start
+     * @return JSON string with the records, the fetched count and the next cursor
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetReleaseHistory(final Context ctx,
+                                    final String packageId,
+                                    final String version,
+                                    final int pageSize,
+                                    final String cursor) {
+        checkPageSize(pageSize);
+
+        // Entries from before MigrateLegacyReleases moved the release come
+        // after its composite key history, which starts at the move
+        List<String> keys = List.of(createKey(ctx, packageId, version), legacyKey(packageId, version));
+
+        boolean skipping = cursor != null && !cursor.isEmpty();
+        List<Map<String, Object>> records = new ArrayList<>(Math.min(pageSize, 64));
+        String nextCursor = "";
+        pages:
+        for (String key : keys) {
+            boolean legacy = !key.equals(keys.get(0));
+            for (KeyModification modification : ctx.getStub().getHistoryForKey(key)) {
+                SoftwareRelease value = null;
+                if (legacy) {
+                    // The delete only marks the move, and a legacy key can also
+                    // belong to another package whose ID contains a colon
+                    if (modification.isDeleted()) {
+                        continue;
+                    }
+                    value = releaseCodec.decode(modification.getValue());
+                    if (!packageId.equals(value.getPackageId()) || !version.equals(value.getVersion())) {
+                        continue;
+                    }
+                }
+                if (skipping) {
+                    skipping = !cursor.equals(modification.getTxId());
+                    continue;
+                }
+                if (records.size() == pageSize) {
+                    // Another entry exists, so the page ends with the last one returned
+                    nextCursor = (String) records.get(pageSize - 1).get("txId");
+                    break pages;
+                }
+                if (value == null && !modification.isDeleted()) {
+                    value = releaseCodec.decode(modification.getValue());
+                }
+                Map<String, Object> record = new LinkedHashMap<>();
+                record.put("txId", modification.getTxId());
+                record.put("timestamp", String.valueOf(modification.getTimestamp()));
+                record.put("isDelete", modification.isDeleted());
+                record.put("value", value);
+                records.add(record);
+            }
+        }
+        if (skipping) {
+            String errorMessage = String.format("Cursor %s is not in the history of %s %s", cursor, packageId, version);
+            throw new ChaincodeException(errorMessage, ReleaseErrors.INVALID_CURSOR.toString());
+        }
+
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("records", records);
+        page.put("fetchedRecordsCount", records.size());
+        page.put("cursor", nextCursor);
+        return genson.serialize(page);
+    }
+
+    /**
+     * List the releases of a package in semantic version order, straight from
+     * a range scan over the package's release keys.
+     *
+     * @param ctx the transaction context
+     * @param packageId the package identifier
+     * @param fromVersion lowest version to include, empty for no lower bound
+     * @param toVersion highest version to include, empty for no upper bound;
+     *        like fromVersion it includes every build of that version, as
+     *        build metadata does not take part in precedence
+     * @param pageSize maximum number of releases to return
+     * @param bookmark bookmark returned by the previous page, empty to start
+     * @return JSON string with the records, the fetched count and the next bookmark
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String ListVersions(final Context ctx,
+                               final String packageId,
+                               final String fromVersion,
+                               final String toVersion,
+                               final int pageSize,
+                               final String bookmark) {
+        checkPageSize(pageSize);
+
+        ChaincodeStub stub = ctx.getStub();
+        JsonListWriter page = JsonListWriter.page();
+
+        // Range bookmarks are the key the next page starts at, so the first
+        // page can seek straight to the lower bound
+        String start = bookmark == null ? "" : bookmark;
+        if (start.isEmpty() && fromVersion != null && !fromVersion.isEmpty()) {
+            start = stub.createCompositeKey(RELEASE_KEY_TYPE, packageId, SemverKey.lowerBound(fromVersion)).toString();
+        }
+        String end = toVersion == null || toVersion.isEmpty()
+                ? null
+                : stub.createCompositeKey(RELEASE_KEY_TYPE, packageId, SemverKey.upperBound(toVersion)).toString();
+
+        QueryResultsIteratorWithMetadata<KeyValue> results = stub.getStateByPartialCompositeKeyWithPagination(
+                new CompositeKey(RELEASE_KEY_TYPE, packageId), pageSize, start);
+
+        String nextBookmark = results.getMetadata().getBookmark();
+        for (KeyValue result : results) {
+            if (end != null && result.getKey().compareTo(end) > 0) {
+                nextBookmark = "";
+                break;
+            }
+            releaseCodec.appendJson(result.getValue(), page);
+        }
+
+        return page.endPage(page.size(), nextBookmark);
+    }
+
+    /**
+     * Move releases stored under the legacy "packageId:version" key to the
+     * release composite key, re-encoded in the current value format. Call repeatedly with the returned bookmark until
+     * it comes back empty. Asset records found in the legacy range are left
+     * for assetcontract:MigrateLegacyAssets.
+     *
+     * Until a release is migrated it is still found under its legacy key, so
+     * it can be validated, discontinued and cannot be published again. A
+     * legacy record whose composite key already exists is out of date and is
+     * deleted rather than migrated. The call that returns an empty bookmark
+     * marks the migration complete, after which releases are only looked up
+     * under their composite key; run the migration once on new ledgers too,
+     * so they skip the legacy lookup.
+     *
+     * @param ctx the transaction context
+     * @param pageSize number of legacy keys to examine in this call
+     * @param bookmark bookmark returned by the previous call, empty to start
+     * @return JSON string with the migrated count, the examined count and the next bookmark
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String MigrateLegacyReleases(final Context ctx, final int pageSize, final String bookmark) {
+        checkPageSize(pageSize);
+
+        ChaincodeStub stub = ctx.getStub();
+        int migrated = 0;
+
+        // Simple-key range scans never return composite keys, so this only sees legacy records.
+        // Paginated queries cannot be used in a transaction that writes, so the page is cut
+        // here and the bookmark is the key the next call starts at.
+        QueryResultsIterator<KeyValue> results = stub.getStateByRange(bookmark == null ? "" : bookmark, "");
+
+        int fetched = 0;
+        String nextBookmark = "";
+        for (KeyValue result : results) {
+            if (fetched == pageSize) {
+                nextBookmark = result.getKey();
+                break;
+            }
+            fetched++;
+            SoftwareRelease release = releaseCodec.decode(result.getValue());
+            if (release == null || release.getPackageId() == null
+                    || !result.getKey().equals(legacyKey(release.getPackageId(), release.getVersion()))) {
+                continue;
+            }
+            String key = createKey(ctx, release.getPackageId(), release.getVersion());
+            LedgerContext.of(ctx).delState(result.getKey());
+            if (LedgerContext.of(ctx).exists(key)) {
+                continue;
+            }
+            byte[] releaseValue = putRelease(ctx, key, release);
+            indexRelease(ctx, release);
+            advanceTag(ctx, release, releaseValue);
+            queueLeaf(ctx, release);
+            migrated++;
+        }
+        // Rewriting the marker would conflict with every transaction that read it
+        if (nextBookmark.isEmpty() && !LedgerContext.of(ctx).exists(migratedKey(ctx))) {
+            LedgerContext.of(ctx).putState(migratedKey(ctx), INDEX_VALUE);
+        }
+
+        TransactionLog.info(ctx, "legacy_releases.migrated", "count", migrated);
+
+        Map<String, Object> progress = new LinkedHashMap<>();
+        progress.put("migratedCount", migrated);
+        progress.put("fetchedRecordsCount", fetched);
+        progress.put("bookmark", nextBookmark);
+        return genson.serialize(progress);
     }
 
     // Helper methods
 
     private String createKey(Context ctx, String packageId, String version) {
+        return ctx.getStub().createCompositeKey(RELEASE_KEY_TYPE, packageId, SemverKey.encode(version)).toString();
+    }
+
+    /**
+     * The simple key releases were stored under before they had a composite key type.
+     */
+    private static String legacyKey(String packageId, String version) {
         return packageId + ":" + version;
     }
 
-    private boolean ReleaseExists(Context ctx, String key) {
-        String releaseJSON = ctx.getStub().getStringState(key);
-        return (releaseJSON != null && !releaseJSON.isEmpty());
+    private static String migratedKey(Context ctx) {
+        return ctx.getStub().createCompositeKey(LEGACY_MIGRATED_KEY_TYPE, RELEASE_KEY_TYPE).toString();
+    }
+
+    /**
+     * Write the secondary index entries for a newly stored release.
+     */
+    private void indexRelease(Context ctx, SoftwareRelease release) {
+        LedgerContext ledger = LedgerContext.of(ctx);
+        if (release.getPublisher() != null) {
+            ledger.putState(ctx.getStub().createCompositeKey(PUBLISHER_INDEX,
+                    release.getPublisher(), release.getPackageId(), release.getVersion()).toString(), INDEX_VALUE);
+        }
+        if (release.getFileHash() != null) {
+            ledger.putState(ctx.getStub().createCompositeKey(HASH_INDEX,
+                    release.getFileHash(), release.getPackageId(), release.getVersion()).toString(), INDEX_VALUE);
+        }
+    }
+
+    private String packageRootKey(Context ctx, String packageId) {
+        return ctx.getStub().createCompositeKey(PACKAGE_ROOT_KEY_TYPE, packageId).toString();
+    }
+
+    /**
+     * A package's releases in key order, including those written earlier in
+     * this transaction, which the peer's range scan does not return.
+     */
+    private List<SoftwareRelease> packageReleases(Context ctx, String packageId) {
+        CompositeKey prefix = new CompositeKey(RELEASE_KEY_TYPE, packageId);
+        Map<String, byte[]> values = new TreeMap<>();
+        for (KeyValue result : ctx.getStub().getStateByPartialCompositeKey(prefix)) {
+            values.put(result.getKey(), result.getValue());
+        }
+        LedgerContext.of(ctx).mergeWrites(prefix.toString(), values);
+
+        List<SoftwareRelease> releases = new ArrayList<>(values.size());
+        for (byte[] value : values.values()) {
+            releases.add(releaseCodec.decode(value));
+        }
+        return releases;
+    }
+
+    /**
+     * Fold the package's pending leaves into its stored tree and store the result.
+     */
+    private String commitPackageRoot(Context ctx, String packageId) {
+        LedgerContext ledger = LedgerContext.of(ctx);
+        Map<String, byte[]> tree = new LinkedHashMap<>();
+        List<String> pending = foldPackageTree(ctx, packageId, tree);
+        byte[] stored = treeState(ctx, tree, packageRootKey(ctx, packageId));
+        if (stored == null) {
+            String errorMessage = String.format("Package %s has no releases", packageId);
+            throw new ChaincodeException(errorMessage, ReleaseErrors.ROOT_NOT_FOUND.toString());
+        }
+
+        for (Map.Entry<String, byte[]> write : tree.entrySet()) {
+            ledger.putState(write.getKey(), write.getValue());
+        }
+        for (String key : pending) {
+            ledger.delState(key);
+        }
+        BinaryReader reader = BinaryReader.open(stored);
+        reader.readInt();
+        return reader.readString();
+    }
+
+    /**
+     * Queue a stored or changed release for its package's tree. This is a
+     * blind write of a key of this transaction's own, like the owner total
+     * deltas of AssetContract, so it never conflicts.
+     */
+    private void queueLeaf(Context ctx, SoftwareRelease release) {
+        ChaincodeStub stub = ctx.getStub();
+        LedgerContext.of(ctx).putState(stub.createCompositeKey(MERKLE_PENDING_KEY_TYPE,
+                release.getPackageId(), stub.getTxId(), release.getVersion()).toString(), INDEX_VALUE);
+    }
+
+    /**
+     * Bring the package's tree up to date in {@code tree}, an overlay of new
+     * node, leaf index and root values over the stored ones. A package with a
+     * stored root gets the leaf of every pending release added, or rehashed
+     * if it already has a position, in pending key order; a package without
+     * one is rebuilt from its releases. Nothing is written to the ledger.
+     *
+     * @return the pending keys that were folded in
+     */
+    private List<String> foldPackageTree(Context ctx, String packageId, Map<String, byte[]> tree) {
+        ChaincodeStub stub = ctx.getStub();
+        List<String> pendingKeys = new ArrayList<>();
+        Set<String> versions = new LinkedHashSet<>();
+        for (KeyValue result : stub.getStateByPartialCompositeKey(new CompositeKey(MERKLE_PENDING_KEY_TYPE, packageId))) {
+            pendingKeys.add(result.getKey());
+            versions.add(stub.splitCompositeKey(result.getKey()).getAttributes().get(2));
+        }
+
+        if (LedgerContext.of(ctx).getState(packageRootKey(ctx, packageId)) == null) {
+            rebuildPackageTree(ctx, packageId, tree);
+            return pendingKeys;
+        }
+
+        for (String version : versions) {
+            SoftwareRelease release = LedgerContext.of(ctx).getObject(createKey(ctx, packageId, version),
+                    SoftwareRelease.class, releaseCodec::decode);
+            if (release == null) {
+                continue;
+            }
+            String indexKey = leafIndexKey(ctx, packageId, version);
+            byte[] position = treeState(ctx, tree, indexKey);
+            if (position == null) {
+                int index = leafCount(ctx, tree, packageId);
+                tree.put(indexKey, writeIndex(index));
+                updatePath(ctx, tree, packageId, index, leaf(release), index + 1);
+            } else {
+                updatePath(ctx, tree, packageId, BinaryReader.open(position).readInt(), leaf(release),
+                        leafCount(ctx, tree, packageId));
+            }
+        }
+        return pendingKeys;
+    }
+
+    /**
+     * Rebuild the package's Merkle tree from a scan of its releases, in key
+     * order, with every node, every leaf index and the root. Packages without
+     * releases get no tree.
+     */
+    private void rebuildPackageTree(Context ctx, String packageId, Map<String, byte[]> tree) {
+        List<SoftwareRelease> releases = packageReleases(ctx, packageId);
+        if (releases.isEmpty()) {
+            return;
+        }
+        List<byte[]> leaves = new ArrayList<>(releases.size());
+        for (SoftwareRelease release : releases) {
+            tree.put(leafIndexKey(ctx, packageId, release.getVersion()), writeIndex(leaves.size()));
+            leaves.add(leaf(release));
+        }
+
+        MerkleTree merkleTree = new MerkleTree(leaves);
+        for (int depth = 0; depth < merkleTree.height(); depth++) {
+            byte[][] level = merkleTree.level(depth);
+            for (int index = 0; index < level.length; index++) {
+                tree.put(nodeKey(ctx, packageId, depth, index), level[index]);
+            }
+        }
+        putPackageRoot(ctx, tree, packageId, merkleTree.size(), merkleTree.root());
+    }
+
+    /**
+     * Value of a tree key: the folded value if there is one, otherwise the stored one.
+     */
+    private static byte[] treeState(Context ctx, Map<String, byte[]> tree, String key) {
+        byte[] folded = tree.get(key);
+        return folded != null ? folded : LedgerContext.of(ctx).getState(key);
+    }
+
+    /**
+     * Set leaf {@code index} and the nodes above it in a tree of {@code leafCount}
+     * leaves, reading one sibling per level, then the new root.
+     */
+    private void updatePath(Context ctx, Map<String, byte[]> tree, String packageId, int index, byte[] leaf,
+                            int leafCount) {
+        byte[] hash = leaf;
+        int i = index;
+        int size = leafCount;
+        for (int depth = 0; ; depth++) {
+            tree.put(nodeKey(ctx, packageId, depth, i), hash);
+            if (size == 1) {
+                break;
+            }
+            int sibling = i ^ 1;
+            if (sibling < size) {
+                byte[] other = treeState(ctx, tree, nodeKey(ctx, packageId, depth, sibling));
+                hash = (i & 1) == 0 ? MerkleTree.node(hash, other) : MerkleTree.node(other, hash);
+            }
+            i >>= 1;
+            size = (size + 1) / 2;
+        }
+        putPackageRoot(ctx, tree, packageId, leafCount, hash);
+    }
+
+    /**
+     * Sibling hashes from leaf {@code index} up to the root, read from the tree.
+     */
+    private List<String> storedProof(Context ctx, Map<String, byte[]> tree, String packageId, int index,
+                                     int leafCount) {
+        List<String> path = new ArrayList<>();
+        int i = index;
+        for (int depth = 0, size = leafCount; size > 1; depth++, size = (size + 1) / 2) {
+            int sibling = i ^ 1;
+            if (sibling < size) {
+                path.add(MerkleTree.hex(treeState(ctx, tree, nodeKey(ctx, packageId, depth, sibling))));
+            }
+            i >>= 1;
+        }
+        return path;
+    }
+
+    private int leafCount(Context ctx, Map<String, byte[]> tree, String packageId) {
+        byte[] stored = treeState(ctx, tree, packageRootKey(ctx, packageId));
+        return stored == null ? 0 : BinaryReader.open(stored).readInt();
+    }
+
+    private void putPackageRoot(Context ctx, Map<String, byte[]> tree, String packageId, int leafCount,
+                                byte[] rootHash) {
+        BinaryWriter writer = BinaryWriter.reusable().header();
+        writer.writeInt(leafCount);
+        writer.writeString(MerkleTree.hex(rootHash));
+        tree.put(packageRootKey(ctx, packageId), writer.toByteArray());
+    }
+
+    private String nodeKey(Context ctx, String packageId, int depth, int index) {
+        return ctx.getStub().createCompositeKey(MERKLE_NODE_KEY_TYPE, packageId,
+                Integer.toString(depth), Integer.toString(index)).toString();
     }
 
-    private SoftwareRelease getRelease(Context ctx, String key) {
-        String releaseJSON = ctx.getStub().getStringState(key);
-        if (releaseJSON == null || releaseJSON.isEmpty()) {
-            String errorMessage = String.format("Release not found for key: %s", key);
+    private String leafIndexKey(Context ctx, String packageId, String version) {
+        return ctx.getStub().createCompositeKey(MERKLE_LEAF_INDEX, packageId, version).toString();
+    }
+
+    private static byte[] leaf(SoftwareRelease release) {
+        return MerkleTree.leaf(release.getVersion(), release.getFileHash(), release.getStatus());
+    }
+
+    private static byte[] writeIndex(int index) {
+        BinaryWriter writer = BinaryWriter.reusable().header();
+        writer.writeInt(index);
+        return writer.toByteArray();
+    }
+
+    private String tagKey(Context ctx, String packageId, String tag) {
+        return ctx.getStub().createCompositeKey(DIST_TAG_KEY_TYPE, packageId, tag).toString();
+    }
+
+    private static String distTag(String version) {
+        String prerelease = SemverKey.prerelease(version);
+        if (prerelease == null) {
+            return LATEST_TAG;
+        }
+        int dot = prerelease.indexOf('.');
+        String tag = dot < 0 ? prerelease : prerelease.substring(0, dot);
+        if (LATEST_TAG.equals(tag) || tag.chars().allMatch(Character::isDigit)) {
+            return NEXT_TAG;
+        }
+        return tag;
+    }
+
+    /**
+     * Point the release's dist-tag at it. This is a blind write: the tag key is
+     * never read here, so concurrent publishes of the same package do not
+     * conflict on it and the last one committed wins.
+     */
+    private void tagRelease(Context ctx, SoftwareRelease release, byte[] releaseValue) {
+        LedgerContext.of(ctx).putState(tagKey(ctx, release.getPackageId(), distTag(release.getVersion())), releaseValue);
+    }
+
+    /**
+     * Point the release's dist-tag at it unless the tag already holds a higher
+     * version. Used when importing releases whose publish order is unknown.
+     */
+    private void advanceTag(Context ctx, SoftwareRelease release, byte[] releaseValue) {
+        if (!"ACTIVE".equals(release.getStatus())) {
+            return;
+        }
+        String key = tagKey(ctx, release.getPackageId(), distTag(release.getVersion()));
+        SoftwareRelease tagged = LedgerContext.of(ctx).getObject(key, SoftwareRelease.class, releaseCodec::decode);
+        if (tagged == null
+                || SemverKey.encode(tagged.getVersion()).compareTo(SemverKey.encode(release.getVersion())) < 0) {
+            LedgerContext.of(ctx).putState(key, releaseValue);
+        }
+    }
+
+    /**
+     * Move the dist-tag off a discontinued release, to the highest remaining
+     * active release of the package with the same tag.
+     */
+    private void untagRelease(Context ctx, SoftwareRelease release) {
+        LedgerContext ledger = LedgerContext.of(ctx);
+        String tag = distTag(release.getVersion());
+        String key = tagKey(ctx, release.getPackageId(), tag);
+
+        SoftwareRelease tagged = ledger.getObject(key, SoftwareRelease.class, releaseCodec::decode);
+        if (tagged == null || !release.getVersion().equals(tagged.getVersion())) {
+            return;
+        }
+
+        // Release keys are in semver order, so the last match is the highest version
+        byte[] replacement = null;
+        QueryResultsIterator<KeyValue> results =
+                ctx.getStub().getStateByPartialCompositeKey(new CompositeKey(RELEASE_KEY_TYPE, release.getPackageId()));
+        for (KeyValue result : results) {
+            SoftwareRelease candidate = releaseCodec.decode(result.getValue());
+            if ("ACTIVE".equals(candidate.getStatus())
+                    && !release.getVersion().equals(candidate.getVersion())
+                    && tag.equals(distTag(candidate.getVersion()))) {
+                replacement = result.getValue();
+            }
+        }
+
+        if (replacement == null) {
+            ledger.delState(key);
+        } else {
+            ledger.putState(key, replacement);
+        }
+    }
+
+    private void checkPageSize(int pageSize) {
+        if (pageSize <= 0) {
+            String errorMessage = String.format("Page size must be positive, got %d", pageSize);
+            throw new ChaincodeException(errorMessage, ReleaseErrors.INVALID_PAGE_SIZE.toString());
+        }
+    }
+
+    private VerifyResult verify(Context ctx, String packageId, String version, String fileHash) {
+        SoftwareRelease release = findRelease(ctx, packageId, version);
+        if (release == null) {
+            return VerifyResult.MISSING;
+        }
+
+        if (!release.getFileHash().equals(fileHash)) {
+            return VerifyResult.HASH_MISMATCH;
+        }
+
+        if ("DISCONTINUED".equals(release.getStatus())) {
+            return VerifyResult.DISCONTINUED;
+        }
+
+        return VerifyResult.VALID;
+    }
+
+    private List<ReleaseManifest.Entry> parseManifest(String manifest) {
+        List<ReleaseManifest.Entry> entries;
+        try {
+            entries = ReleaseManifest.parse(manifest);
+        } catch (IllegalArgumentException e) {
+            throw new ChaincodeException(e.getMessage(), ReleaseErrors.INVALID_MANIFEST.toString());
+        }
+        if (entries.isEmpty()) {
+            throw new ChaincodeException("Manifest contains no releases", ReleaseErrors.INVALID_MANIFEST.toString());
+        }
+        return entries;
+    }
+
+    private byte[] putRelease(Context ctx, String key, SoftwareRelease release) {
+        byte[] releaseValue = releaseCodec.encode(release);
+        LedgerContext.of(ctx).putObject(key, release, releaseValue);
+        return releaseValue;
+    }
+
+    private boolean ReleaseExists(Context ctx, String packageId, String version) {
+        return LedgerContext.of(ctx).exists(createKey(ctx, packageId, version))
+                || findLegacyRelease(ctx, packageId, version) != null;
+    }
+
+    /**
+     * Look a release up under its composite key, falling back to the legacy
+     * key until MigrateLegacyReleases has completed.
+     */
+    private SoftwareRelease findRelease(Context ctx, String packageId, String version) {
+        SoftwareRelease release = LedgerContext.of(ctx).getObject(createKey(ctx, packageId, version),
+                SoftwareRelease.class, releaseCodec::decode);
+        return release != null ? release : findLegacyRelease(ctx, packageId, version);
+    }
+
+    private SoftwareRelease findLegacyRelease(Context ctx, String packageId, String version) {
+        // The marker never changes once written, so reading it cannot conflict,
+        // and the transaction's LedgerContext reads it at most once
+        if (LedgerContext.of(ctx).exists(migratedKey(ctx))) {
+            return null;
+        }
+        SoftwareRelease release = LedgerContext.of(ctx).getObject(legacyKey(packageId, version),
+                SoftwareRelease.class, releaseCodec::decode);
+        if (release == null || !packageId.equals(release.getPackageId()) || !version.equals(release.getVersion())) {
+            return null;
+        }
+        return release;
+    }
+
+    private SoftwareRelease getRelease(Context ctx, String packageId, String version) {
+        SoftwareRelease release = findRelease(ctx, packageId, version);
+        if (release == null) {
+            String errorMessage = String.format("Release not found for key: %s %s", packageId, version);
             throw new ChaincodeException(errorMessage, ReleaseErrors.RELEASE_NOT_FOUND.toString());
         }
-        return genson.deserialize(releaseJSON, SoftwareRelease.class);
+        return release;
     }
 }
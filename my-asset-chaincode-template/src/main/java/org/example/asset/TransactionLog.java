@@ -0,0 +1,340 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.example.asset;
+
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.hyperledger.fabric.contract.Context;
+
+/**
+ * Structured transaction log, written as one JSON object per line to stdout:
+ *
+ * <pre>
+ * {"time":"...","level":"INFO","txId":"...","function":"PublishRelease","event":"release.published","key":"..."}
+ * </pre>
+ *
+ * Logging never blocks a transaction. Callers only claim a preallocated slot
+ * in a bounded ring buffer and store references to strings they already hold;
+ * formatting and I/O happen on a background writer thread. When the ring is
+ * full the record is dropped and counted, and the writer reports the number
+ * dropped. Records below the level set by CORE_CHAINCODE_LOGGING_LEVEL
+ * (DEBUG, INFO, WARNING or ERROR; default INFO) are discarded before a slot
+ * is claimed.
+ *
+ * The ring is a bounded multi-producer queue: each slot carries a sequence
+ * number that says whether it is free for the producer at position p (p) or
+ * holds that producer's record (p + 1), so producers only compete on one
+ * compare-and-set of the tail. While the ring is empty the writer is parked;
+ * the producer that fills the slot it is waiting for unparks it.
+ */
+final class TransactionLog {
+
+    enum Level {
+        DEBUG, INFO, WARNING, ERROR
+    }
+
+    static final String LEVEL_VARIABLE = "CORE_CHAINCODE_LOGGING_LEVEL";
+
+    private static final int CAPACITY = 1 << 14;
+    private static final int MASK = CAPACITY - 1;
+
+    /**
+     * A system property of the same name takes precedence, for tools that
+     * run the contracts in process
+     */
+    private static final Level THRESHOLD = threshold(System.getProperty(LEVEL_VARIABLE, System.getenv(LEVEL_VARIABLE)));
+
+    private static final Slot[] SLOTS = new Slot[CAPACITY];
+    private static final AtomicLongArray SEQUENCES = new AtomicLongArray(CAPACITY);
+    private static final AtomicLong TAIL = new AtomicLong();
+
+    /**
+     * Position of the next record the writer reads, published before it parks
+     */
+    private static final AtomicLong WAITING_FOR = new AtomicLong();
+    private static final AtomicLong DROPPED = new AtomicLong();
+
+    private static final Thread WRITER;
+
+    private static final Thread SHUTDOWN_HOOK = new Thread(TransactionLog::shutdown, "chaincode-log-shutdown");
+
+    private static volatile boolean running = true;
+
+    static {
+        for (int i = 0; i < CAPACITY; i++) {
+            SLOTS[i] = new Slot();
+            SEQUENCES.set(i, i);
+        }
+        WRITER = new Thread(TransactionLog::drain, "chaincode-log-writer");
+        WRITER.setDaemon(true);
+        WRITER.start();
+        Runtime.getRuntime().addShutdownHook(SHUTDOWN_HOOK);
+    }
+
+    /**
+     * One record. Fields are written by the producer that claimed the slot
+     * and read by the writer after the slot's sequence is published.
+     */
+    private static final class Slot {
+        long time;
+        Level level;
+        String txId;
+        String function;
+        String event;
+        String field;
+        String value;
+        String field2;
+        String value2;
+        String countField;
+        long count;
+    }
+
+    private TransactionLog() {
+    }
+
+    static boolean isEnabled(final Level level) {
+        return level.compareTo(THRESHOLD) >= 0;
+    }
+
+    /**
+     * Log an event with up to two string fields and a count; fields whose
+     * name is null are left out. The count is stored unboxed.
+     */
+    static void log(final Level level, final Context ctx, final String event,
+                    final String field, final String value, final String field2, final String value2,
+                    final String countField, final long count) {
+        if (isEnabled(level)) {
+            append(level, ctx, event, field, value, field2, value2, countField, count);
+        }
+    }
+
+    static void info(final Context ctx, final String event, final String field, final String value) {
+        log(Level.INFO, ctx, event, field, value, null, null, null, 0);
+    }
+
+    static void info(final Context ctx, final String event, final String field, final String value,
+                     final String field2, final String value2) {
+        log(Level.INFO, ctx, event, field, value, field2, value2, null, 0);
+    }
+
+    static void info(final Context ctx, final String event, final String countField, final long count) {
+        log(Level.INFO, ctx, event, null, null, null, null, countField, count);
+    }
+
+    static void info(final Context ctx, final String event, final String field, final String value,
+                     final String countField, final long count) {
+        log(Level.INFO, ctx, event, field, value, null, null, countField, count);
+    }
+
+    static void warning(final Context ctx, final String event, final String field, final String value) {
+        log(Level.WARNING, ctx, event, field, value, null, null, null, 0);
+    }
+
+    static void warning(final Context ctx, final String event, final String field, final String value,
+                        final String field2, final String value2) {
+        log(Level.WARNING, ctx, event, field, value, field2, value2, null, 0);
+    }
+
+    static void warning(final Context ctx, final String event, final String countField, final long count) {
+        log(Level.WARNING, ctx, event, null, null, null, null, countField, count);
+    }
+
+    /**
+     * Leave stopping the log to the caller, for a shutdown sequence that still
+     * logs; JVM shutdown hooks run concurrently, in no particular order.
+     */
+    static void detachShutdownHook() {
+        Runtime.getRuntime().removeShutdownHook(SHUTDOWN_HOOK);
+    }
+
+    /**
+     * Write out everything logged so far and stop the writer. Records logged
+     * afterwards are dropped.
+     */
+    static void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(WRITER);
+        try {
+            WRITER.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void append(final Level level, final Context ctx, final String event,
+                               final String field, final String value, final String field2, final String value2,
+                               final String countField, final long count) {
+        if (!running) {
+            DROPPED.incrementAndGet();
+            return;
+        }
+        long position;
+        while (true) {
+            position = TAIL.get();
+            long sequence = SEQUENCES.get((int) position & MASK);
+            if (sequence == position) {
+                if (TAIL.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (sequence < position) {
+                DROPPED.incrementAndGet();
+                return;
+            }
+        }
+        int index = (int) position & MASK;
+        Slot slot = SLOTS[index];
+        slot.time = System.currentTimeMillis();
+        slot.level = level;
+        slot.txId = ctx == null ? null : ctx.getStub().getTxId();
+        slot.function = ctx == null ? null : ctx.getStub().getFunction();
+        slot.event = event;
+        slot.field = field;
+        slot.value = value;
+        slot.field2 = field2;
+        slot.value2 = value2;
+        slot.countField = countField;
+        slot.count = count;
+        SEQUENCES.set(index, position + 1);
+        if (WAITING_FOR.get() == position) {
+            LockSupport.unpark(WRITER);
+        }
+    }
+
+    private static void drain() {
+        Writer out = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(FileDescriptor.out), StandardCharsets.UTF_8), 1 << 16);
+        StringBuilder line = new StringBuilder(256);
+        long head = 0;
+        long reported = 0;
+        boolean unflushed = false;
+        try {
+            while (true) {
+                int index = (int) head & MASK;
+                if (SEQUENCES.get(index) == head + 1) {
+                    Slot slot = SLOTS[index];
+                    format(slot, line);
+                    slot.txId = null;
+                    slot.function = null;
+                    slot.value = null;
+                    slot.value2 = null;
+                    SEQUENCES.set(index, head + CAPACITY);
+                    head++;
+                    out.append(line);
+                    unflushed = true;
+                    continue;
+                }
+                long dropped = DROPPED.get();
+                if (dropped != reported) {
+                    out.append(dropped(dropped - reported, line));
+                    reported = dropped;
+                    unflushed = true;
+                }
+                if (unflushed) {
+                    out.flush();
+                    unflushed = false;
+                    continue;
+                }
+                if (!running && TAIL.get() == head) {
+                    return;
+                }
+                // Either the producer of this slot sees the position and unparks,
+                // or the check below sees its record
+                WAITING_FOR.set(head);
+                if (SEQUENCES.get(index) != head + 1) {
+                    LockSupport.park();
+                }
+            }
+        } catch (IOException e) {
+            // stdout is gone, nothing left to log to
+        }
+    }
+
+    private static void format(final Slot slot, final StringBuilder line) {
+        line.setLength(0);
+        line.append("{\"time\":\"").append(Instant.ofEpochMilli(slot.time)).append('"');
+        line.append(",\"level\":\"").append(slot.level).append('"');
+        if (slot.txId != null) {
+            string(line.append(",\"txId\":"), slot.txId);
+        }
+        if (slot.function != null) {
+            string(line.append(",\"function\":"), slot.function);
+        }
+        string(line.append(",\"event\":"), slot.event);
+        field(line, slot.field, slot.value);
+        field(line, slot.field2, slot.value2);
+        if (slot.countField != null) {
+            string(line.append(','), slot.countField).append(':').append(slot.count);
+        }
+        line.append("}\n");
+    }
+
+    private static void field(final StringBuilder line, final String name, final String value) {
+        if (name == null) {
+            return;
+        }
+        string(line.append(','), name).append(':');
+        if (value == null) {
+            line.append("null");
+        } else {
+            string(line, value);
+        }
+    }
+
+    private static StringBuilder dropped(final long count, final StringBuilder line) {
+        line.setLength(0);
+        line.append("{\"time\":\"").append(Instant.now()).append("\",\"level\":\"WARNING\"");
+        line.append(",\"event\":\"log.dropped\",\"count\":").append(count).append("}\n");
+        return line;
+    }
+
+    private static StringBuilder string(final StringBuilder line, final String value) {
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                line.append('\\').append(c);
+            } else if (c < 0x20) {
+                // Composite keys contain U+0000 separators
+                line.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+            } else {
+                line.append(c);
+            }
+        }
+        return line.append('"');
+    }
+
+    private static Level threshold(final String setting) {
+        if (setting == null || setting.isEmpty()) {
+            return Level.INFO;
+        }
+        switch (setting.trim().toUpperCase(Locale.ROOT)) {
+            case "DEBUG":
+                return Level.DEBUG;
+            case "WARN":
+            case "WARNING":
+                return Level.WARNING;
+            case "ERROR":
+            case "CRITICAL":
+                return Level.ERROR;
+            default:
+                return Level.INFO;
+        }
+    }
+}
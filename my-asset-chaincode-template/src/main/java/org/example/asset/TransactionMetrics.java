@@ -0,0 +1,211 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.example.asset;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.shim.Chaincode;
+
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.Counter;
+import io.prometheus.client.Histogram;
+import io.prometheus.client.exporter.HTTPServer;
+import io.prometheus.client.hotspot.DefaultExports;
+
+/**
+ * Prometheus metrics for every contract transaction, labelled by contract
+ * and function: latency, state reads and writes, range-scan rows, value
+ * bytes and errors by ReleaseErrors/AssetErrors code.
+ *
+ * The shim calls afterTransaction only when a transaction returns, so the
+ * contracts record successes there. Every other way a transaction can end
+ * is recorded by {@link #completed} once the shim has built its response,
+ * under the code the response carries; exceptions that are not a coded
+ * ChaincodeException count as UNEXPECTED. The chaincode service calls it
+ * from {@link MeteredChaincode}. Where nothing does, such as a peer-launched
+ * chaincode, the next transaction started on the same thread closes out the
+ * failed one instead.
+ */
+final class TransactionMetrics {
+
+    /**
+     * Port for the /metrics endpoint, served from the first transaction on.
+     * Only set it when the chaincode runs as an external service; a
+     * peer-launched chaincode has no port the scraper can reach.
+     */
+    static final String PORT_VARIABLE = "CHAINCODE_METRICS_PORT";
+
+    private static final Histogram DURATION = Histogram.build()
+            .name("chaincode_transaction_duration_seconds")
+            .help("Transaction execution time in the chaincode")
+            .labelNames("contract", "function", "outcome")
+            .buckets(0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5)
+            .register();
+
+    private static final Counter STATE_READS = counter("chaincode_state_reads_total",
+            "Point reads of world state and private data");
+
+    private static final Counter STATE_WRITES = counter("chaincode_state_writes_total",
+            "Writes and deletes of world state and private data");
+
+    private static final Counter SCANNED_ROWS = counter("chaincode_range_scan_rows_total",
+            "Rows returned by range, composite key, rich and history queries");
+
+    private static final Counter BYTES_READ = counter("chaincode_value_bytes_read_total",
+            "Value bytes returned by reads and queries");
+
+    private static final Counter BYTES_WRITTEN = counter("chaincode_value_bytes_written_total",
+            "Value bytes written");
+
+    private static final Counter ERRORS = Counter.build()
+            .name("chaincode_transaction_errors_total")
+            .help("Transactions rejected by the contract, by error code")
+            .labelNames("contract", "function", "code")
+            .register();
+
+    /**
+     * Error code of a transaction that failed without a coded ChaincodeException
+     */
+    static final String UNEXPECTED = "UNEXPECTED";
+
+    /**
+     * The transaction executing on this thread until afterTransaction or
+     * {@link #completed} records it
+     */
+    private static final ThreadLocal<Running> CURRENT = new ThreadLocal<>();
+
+    private static HTTPServer server;
+
+    static {
+        startServer();
+    }
+
+    private TransactionMetrics() {
+    }
+
+    /**
+     * Start timing a transaction and count it as in flight; called from beforeTransaction.
+     */
+    static void started(final String contract, final Context ctx) {
+        Running abandoned = CURRENT.get();
+        if (abandoned != null) {
+            failed(abandoned, UNEXPECTED);
+        }
+        LedgerContext ledger = LedgerContext.of(ctx);
+        ledger.setStartNanos(System.nanoTime());
+        CURRENT.set(new Running(contract, ctx));
+        InFlightTransactions.begin(ledger);
+    }
+
+    /**
+     * Record a transaction that returned normally; called from afterTransaction.
+     */
+    static void succeeded(final String contract, final Context ctx) {
+        CURRENT.remove();
+        record(contract, ctx, "success");
+    }
+
+    /**
+     * Record the transaction dispatched on this thread as failed unless it
+     * already succeeded. Call once the shim has turned it into a response.
+     *
+     * @param response the shim's response, or null if dispatching threw
+     */
+    static void completed(final Chaincode.Response response) {
+        Running running = CURRENT.get();
+        if (running == null) {
+            return;
+        }
+        String code = response == null ? null : response.getStringPayload();
+        failed(running, code == null || code.isEmpty() ? UNEXPECTED : code);
+    }
+
+    private static void failed(final Running running, final String code) {
+        CURRENT.remove();
+        String function = record(running.contract, running.ctx, "error");
+        ERRORS.labels(running.contract, function, code).inc();
+    }
+
+    /**
+     * Serve /metrics on {@value #PORT_VARIABLE} if it is set. Safe to call more than once.
+     */
+    static synchronized void startServer() {
+        String port = System.getenv(PORT_VARIABLE);
+        if (server != null || port == null || port.isEmpty()) {
+            return;
+        }
+        DefaultExports.initialize();
+        try {
+            server = new HTTPServer.Builder()
+                    .withPort(Integer.parseInt(port))
+                    .withRegistry(CollectorRegistry.defaultRegistry)
+                    .withDaemonThreads(true)
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot serve metrics on port " + port, e);
+        }
+    }
+
+    static synchronized void stopServer() {
+        if (server != null) {
+            server.close();
+            server = null;
+        }
+    }
+
+    private static String record(final String contract, final Context ctx, final String outcome) {
+        LedgerContext ledger = LedgerContext.of(ctx);
+        InFlightTransactions.end(ledger);
+        String function = function(ctx.getStub().getFunction());
+        if (ledger.getStartNanos() != 0) {
+            DURATION.labels(contract, function, outcome).observe((System.nanoTime() - ledger.getStartNanos()) / 1e9);
+        }
+        if (ctx.getStub() instanceof MeteredChaincodeStub) {
+            MeteredChaincodeStub stub = (MeteredChaincodeStub) ctx.getStub();
+            add(STATE_READS, contract, function, stub.getStateReads());
+            add(STATE_WRITES, contract, function, stub.getStateWrites());
+            add(SCANNED_ROWS, contract, function, stub.getScannedRows());
+            add(BYTES_READ, contract, function, stub.getBytesRead());
+            add(BYTES_WRITTEN, contract, function, stub.getBytesWritten());
+        }
+        return function;
+    }
+
+    /**
+     * Strip the contract name from a qualified function name such as
+     * SoftwareReleaseContract:PublishRelease.
+     */
+    private static String function(final String name) {
+        if (name == null) {
+            return "";
+        }
+        int separator = name.indexOf(':');
+        return separator < 0 ? name : name.substring(separator + 1);
+    }
+
+    private static void add(final Counter counter, final String contract, final String function, final long amount) {
+        if (amount > 0) {
+            counter.labels(contract, function).inc(amount);
+        }
+    }
+
+    private static Counter counter(final String name, final String help) {
+        return Counter.build().name(name).help(help).labelNames("contract", "function").register();
+    }
+
+    private static final class Running {
+
+        private final String contract;
+
+        private final Context ctx;
+
+        Running(final String contract, final Context ctx) {
+            this.contract = contract;
+            this.ctx = ctx;
+        }
+    }
+}
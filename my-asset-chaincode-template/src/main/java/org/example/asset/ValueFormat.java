@@ -0,0 +1,25 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.example.asset;
+
+/**
+ * Format used when writing ledger values. Reads always accept every format,
+ * so records written under either setting can coexist on the ledger.
+ *
+ * Each contract fixes the write format of its values in code. Endorsing
+ * peers must write identical bytes, so the format is part of the chaincode
+ * package rather than peer configuration; changing it is a chaincode upgrade.
+ */
+enum ValueFormat {
+    /**
+     * Genson JSON, as written by earlier versions of this chaincode.
+     */
+    JSON,
+
+    /**
+     * Compact binary encoding with a format-version header, see {@link BinaryWriter}.
+     */
+    BINARY
+}
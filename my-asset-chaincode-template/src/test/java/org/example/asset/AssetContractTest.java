@@ -0,0 +1,403 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.example.asset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.example.asset.InMemoryLedger.InvalidTransactionException;
+import org.example.asset.InMemoryLedger.ValidationCode;
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.shim.ChaincodeException;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AssetContractTest {
+
+    private final AssetContract contract = new AssetContract();
+    private InMemoryLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        ledger = new InMemoryLedger();
+    }
+
+    @Test
+    void publishReadUpdateDelete() {
+        publish("asset1", "Org1", 100);
+        assertThatThrownBy(() -> publish("asset1", "Org2", 5))
+                .isInstanceOfSatisfying(ChaincodeException.class,
+                        e -> assertThat(code(e)).isEqualTo("ASSET_ALREADY_EXISTS"));
+
+        update("asset1", "Org2", 150);
+        Asset asset = read("asset1");
+        assertThat(asset.getOwner()).isEqualTo("Org2");
+        assertThat(asset.getValue()).isEqualTo(150);
+
+        ledger.submit(contract, "DeleteAsset", ctx -> {
+            contract.DeleteAsset(ctx, "asset1");
+            return null;
+        });
+        assertThat(ledger.evaluate(contract, "AssetExists", ctx -> contract.AssetExists(ctx, "asset1"))).isFalse();
+        assertThatThrownBy(() -> read("asset1"))
+                .isInstanceOfSatisfying(ChaincodeException.class, e -> assertThat(code(e)).isEqualTo("ASSET_NOT_FOUND"));
+    }
+
+    @Test
+    void ownerTotalsFollowEveryChange() {
+        publish("asset1", "Org1", 100);
+        publish("asset2", "Org1", 50);
+        publish("asset3", "Org2", 7);
+        assertThat(ownerTotal("Org1")).isEqualTo(150);
+
+        update("asset1", "Org1", 120);
+        update("asset2", "Org2", 50);
+        assertThat(ownerTotal("Org1")).isEqualTo(120);
+        assertThat(ownerTotal("Org2")).isEqualTo(57);
+
+        assertThat(compact("Org1")).isEqualTo(120);
+        assertThat(compact("Org2")).isEqualTo(57);
+        update("asset1", "Org2", 3);
+        ledger.submit(contract, "DeleteAsset", ctx -> {
+            contract.DeleteAsset(ctx, "asset3");
+            return null;
+        });
+        assertThat(ownerTotal("Org1")).isZero();
+        assertThat(ownerTotal("Org2")).isEqualTo(53);
+        assertThat(compact("Org2")).isEqualTo(53);
+        assertThat(ownerTotal("Org2")).isEqualTo(53);
+    }
+
+    @Test
+    void ownerTotalsHandleValuesBeyondInt() {
+        publish("asset1", "Org1", Integer.MAX_VALUE);
+        publish("asset2", "Org1", Integer.MAX_VALUE);
+        compact("Org1");
+        update("asset1", "Org2", Integer.MAX_VALUE);
+
+        assertThat(ownerTotal("Org1")).isEqualTo(Integer.MAX_VALUE);
+        assertThat(ownerTotal("Org2")).isEqualTo(Integer.MAX_VALUE);
+        publish("asset3", "Org2", Integer.MAX_VALUE);
+        assertThat(ownerTotal("Org2")).isEqualTo(2L * Integer.MAX_VALUE);
+    }
+
+    @Test
+    void compactionFoldsDeltas() {
+        publish("asset1", "Org1", 10);
+        compact("Org1");
+        for (int i = 2; i <= 5; i++) {
+            publish("asset" + i, "Org1", 10);
+        }
+
+        MeteredChaincodeStub before = ledger.evaluate(contract, "GetOwnerTotal",
+                ctx -> metered(ctx, contract.GetOwnerTotal(ctx, "Org1")));
+        assertThat(before.getStateReads()).isEqualTo(1);
+        assertThat(before.getScannedRows()).isEqualTo(4);
+
+        assertThat(compact("Org1")).isEqualTo(50);
+        MeteredChaincodeStub after = ledger.evaluate(contract, "GetOwnerTotal",
+                ctx -> metered(ctx, contract.GetOwnerTotal(ctx, "Org1")));
+        assertThat(after.getScannedRows()).isZero();
+        assertThat(ownerTotal("Org1")).isEqualTo(50);
+    }
+
+    @Test
+    void changesThatCancelOutLeaveNoDelta() {
+        publish("asset1", "Org1", 10);
+        compact("Org1");
+
+        update("asset1", "Org1", 10);
+        MeteredChaincodeStub total = ledger.evaluate(contract, "GetOwnerTotal",
+                ctx -> metered(ctx, contract.GetOwnerTotal(ctx, "Org1")));
+
+        assertThat(total.getScannedRows()).isZero();
+        assertThat(ownerTotal("Org1")).isEqualTo(10);
+    }
+
+    @Test
+    void writesForOneOwnerDoNotConflict() {
+        InMemoryChaincodeStub first = simulate("PublishAsset",
+                ctx -> contract.PublishAsset(ctx, "asset1", "one", "", "Org1", 10));
+        InMemoryChaincodeStub second = simulate("PublishAsset",
+                ctx -> contract.PublishAsset(ctx, "asset2", "two", "", "Org1", 20));
+
+        assertThat(ledger.commit(first)).isEqualTo(ValidationCode.VALID);
+        assertThat(ledger.commit(second)).isEqualTo(ValidationCode.VALID);
+        assertThat(ownerTotal("Org1")).isEqualTo(30);
+    }
+
+    @Test
+    void concurrentUpdatesOfOneAssetConflict() {
+        publish("asset1", "Org1", 10);
+        InMemoryChaincodeStub first = simulate("UpdateAsset",
+                ctx -> contract.UpdateAsset(ctx, "asset1", "one", "", "Org1", 20));
+        InMemoryChaincodeStub second = simulate("UpdateAsset",
+                ctx -> contract.UpdateAsset(ctx, "asset1", "one", "", "Org2", 30));
+
+        assertThat(ledger.commit(first)).isEqualTo(ValidationCode.VALID);
+        assertThat(ledger.commit(second)).isEqualTo(ValidationCode.MVCC_READ_CONFLICT);
+        assertThat(read("asset1").getValue()).isEqualTo(20);
+        assertThat(ownerTotal("Org1")).isEqualTo(20);
+        assertThat(ownerTotal("Org2")).isZero();
+    }
+
+    @Test
+    void compactionRacingAnAssetWriteIsRetried() {
+        publish("asset1", "Org1", 10);
+        compact("Org1");
+        publish("asset2", "Org1", 10);
+
+        InMemoryChaincodeStub compaction = simulate("CompactOwnerTotals", ctx -> contract.CompactOwnerTotals(ctx, "Org1"));
+        publish("asset3", "Org1", 10);
+
+        // The new delta is a phantom in the compaction's scan; the asset write stands
+        assertThat(ledger.commit(compaction)).isEqualTo(ValidationCode.PHANTOM_READ_CONFLICT);
+        assertThat(ownerTotal("Org1")).isEqualTo(30);
+        assertThat(compact("Org1")).isEqualTo(30);
+    }
+
+    @Test
+    void submitRaisesValidationFailure() {
+        publish("asset1", "Org1", 10);
+        InMemoryChaincodeStub pending = simulate("UpdateAsset",
+                ctx -> contract.UpdateAsset(ctx, "asset1", "one", "", "Org1", 20));
+
+        assertThatThrownBy(() -> ledger.submit(contract, "UpdateAsset",
+                ctx -> {
+                    // Commits between the simulation and the submit's own commit
+                    ledger.commit(pending);
+                    return contract.UpdateAsset(ctx, "asset1", "two", "", "Org2", 30);
+                }))
+                .isInstanceOfSatisfying(InvalidTransactionException.class,
+                        e -> assertThat(e.getCode()).isEqualTo(ValidationCode.MVCC_READ_CONFLICT));
+        assertThat(read("asset1").getValue()).isEqualTo(20);
+    }
+
+    @Test
+    void pagesFollowBookmarks() {
+        for (int i = 0; i < 10; i++) {
+            publish(String.format("asset%02d", i), "Org1", i);
+        }
+
+        List<String> all = collectPages(page -> ledger.evaluate(contract, "GetAllAssetsWithPagination",
+                ctx -> contract.GetAllAssetsWithPagination(ctx, 4, page)), 4);
+        assertThat(all).hasSize(10).isSorted();
+
+        assertThatThrownBy(() -> ledger.evaluate(contract, "GetAllAssetsWithPagination",
+                ctx -> contract.GetAllAssetsWithPagination(ctx, 0, "")))
+                .isInstanceOfSatisfying(ChaincodeException.class,
+                        e -> assertThat(code(e)).isEqualTo("INVALID_PAGE_SIZE"));
+    }
+
+    @Test
+    void ownerIndexPagesFollowBookmarks() {
+        for (int i = 0; i < 10; i++) {
+            publish(String.format("asset%02d", i), i % 2 == 0 ? "Org1" : "Org2", i);
+        }
+        update("asset00", "Org2", 0);
+        ledger.submit(contract, "DeleteAsset", ctx -> {
+            contract.DeleteAsset(ctx, "asset03");
+            return null;
+        });
+
+        List<String> owned = collectPages(page -> ledger.evaluate(contract, "GetAssetsByOwner",
+                ctx -> contract.GetAssetsByOwner(ctx, "Org2", 2, page)), 2);
+        assertThat(owned).containsExactly("asset00", "asset01", "asset05", "asset07", "asset09");
+    }
+
+    @Test
+    void queryAssetsPagesSelectorMatches() {
+        for (int i = 0; i < 10; i++) {
+            publish(String.format("asset%02d", i), i % 2 == 0 ? "Org1" : "Org2", i);
+        }
+        // Release documents share the state database but have no assetID
+        ledger.load("com.example.app:1.0.0", "{\"packageId\":\"com.example.app\",\"owner\":\"Org2\",\"value\":9}"
+                .getBytes(StandardCharsets.UTF_8));
+        String selector = "{\"owner\":\"Org2\",\"value\":{\"$gte\":3}}";
+
+        List<String> matched = collectPages(page -> ledger.evaluate(contract, "QueryAssets",
+                ctx -> contract.QueryAssets(ctx, selector, 2, page)), 2);
+        assertThat(matched).containsExactly("asset03", "asset05", "asset07", "asset09");
+
+        assertThatThrownBy(() -> ledger.evaluate(contract, "QueryAssets", ctx -> contract.QueryAssets(ctx, "[]", 2, "")))
+                .isInstanceOfSatisfying(ChaincodeException.class, e -> assertThat(code(e)).isEqualTo("INVALID_QUERY"));
+    }
+
+    @Test
+    void migratesLegacyAssets() {
+        ledger.load("asset1", legacyAsset("asset1", "Org1", 100));
+        ledger.load("asset2", legacyAsset("asset2", "Org1", 50));
+        ledger.load("asset3", legacyAsset("asset3", "Org2", 7));
+        ledger.load("mismatched", legacyAsset("asset4", "Org2", 1));
+        ledger.load("com.example.app:1.0.0", ("{\"packageId\":\"com.example.app\",\"version\":\"1.0.0\","
+                + "\"fileHash\":\"a\",\"status\":\"ACTIVE\"}").getBytes(StandardCharsets.UTF_8));
+
+        // Found before migration, but not yet in the owner index
+        assertThat(read("asset1").getValue()).isEqualTo(100);
+        assertThat(ownerTotal("Org1")).isZero();
+
+        assertThat(migrate(2)).isEqualTo(3);
+        assertThat(ledger.getState("asset1")).isNull();
+        assertThat(ledger.getState(assetKey("asset1"))).isNotNull();
+        assertThat(ledger.getState("mismatched")).isNotNull();
+        assertThat(ledger.getState("com.example.app:1.0.0")).isNotNull();
+        assertThat(ownerTotal("Org1")).isEqualTo(150);
+        assertThat(ownerTotal("Org2")).isEqualTo(7);
+    }
+
+    @Test
+    void updatingLegacyAssetMigratesIt() {
+        ledger.load("asset1", legacyAsset("asset1", "Org1", 100));
+
+        update("asset1", "Org2", 40);
+
+        assertThat(ledger.getState("asset1")).isNull();
+        assertThat(ownerTotal("Org1")).isZero();
+        assertThat(ownerTotal("Org2")).isEqualTo(40);
+    }
+
+    @Test
+    void completedMigrationStopsLegacyLookups() {
+        publish("asset1", "Org1", 10);
+        assertThat(migrate(10)).isZero();
+        // Migrating again does not rewrite the marker
+        assertThat(simulate("MigrateLegacyAssets", ctx -> contract.MigrateLegacyAssets(ctx, 10, "")).writeSet())
+                .isEmpty();
+        ledger.load("legacy", legacyAsset("legacy", "Org1", 1));
+
+        assertThat(ledger.evaluate(contract, "AssetExists", ctx -> contract.AssetExists(ctx, "legacy"))).isFalse();
+        // The asset and the marker; the legacy key is not read
+        MeteredChaincodeStub exists = ledger.evaluate(contract, "AssetExists",
+                ctx -> metered(ctx, contract.AssetExists(ctx, "asset2")));
+        assertThat(exists.getStateReads()).isEqualTo(2);
+    }
+
+    @Test
+    void countsStateCalls() {
+        publish("asset1", "Org1", 10);
+        ledger.load("legacy", legacyAsset("legacy", "Org1", 1));
+
+        MeteredChaincodeStub read = ledger.evaluate(contract, "ReadAsset",
+                ctx -> metered(ctx, contract.ReadAsset(ctx, "asset1")));
+        assertThat(read.getStateReads()).isEqualTo(1);
+        assertThat(read.getStateWrites()).isZero();
+
+        // Composite key, migration marker and legacy key
+        MeteredChaincodeStub legacy = ledger.evaluate(contract, "ReadAsset",
+                ctx -> metered(ctx, contract.ReadAsset(ctx, "legacy")));
+        assertThat(legacy.getStateReads()).isEqualTo(3);
+
+        // Existence checks of both keys and the marker; asset, owner index
+        // entry and owner delta written
+        MeteredChaincodeStub publish = ledger.submit(contract, "PublishAsset",
+                ctx -> metered(ctx, contract.PublishAsset(ctx, "asset2", "two", "", "Org1", 20)));
+        assertThat(publish.getStateReads()).isEqualTo(3);
+        assertThat(publish.getStateWrites()).isEqualTo(3);
+        assertThat(publish.getBytesWritten()).isPositive();
+    }
+
+    private Asset publish(final String assetID, final String owner, final int value) {
+        return ledger.submit(contract, "PublishAsset",
+                ctx -> contract.PublishAsset(ctx, assetID, "name " + assetID, "", owner, value));
+    }
+
+    private Asset update(final String assetID, final String owner, final int value) {
+        return ledger.submit(contract, "UpdateAsset",
+                ctx -> contract.UpdateAsset(ctx, assetID, "name " + assetID, "", owner, value));
+    }
+
+    private Asset read(final String assetID) {
+        return ledger.evaluate(contract, "ReadAsset", ctx -> contract.ReadAsset(ctx, assetID));
+    }
+
+    private long ownerTotal(final String owner) {
+        return ledger.evaluate(contract, "GetOwnerTotal", ctx -> contract.GetOwnerTotal(ctx, owner));
+    }
+
+    private long compact(final String owner) {
+        return ledger.submit(contract, "CompactOwnerTotals", ctx -> contract.CompactOwnerTotals(ctx, owner));
+    }
+
+    /**
+     * Run MigrateLegacyAssets to the end of the legacy range.
+     *
+     * @return the number of assets migrated
+     */
+    private int migrate(final int pageSize) {
+        int migrated = 0;
+        String bookmark = "";
+        do {
+            String page = bookmark;
+            JSONObject progress = new JSONObject(ledger.submit(contract, "MigrateLegacyAssets",
+                    ctx -> contract.MigrateLegacyAssets(ctx, pageSize, page)));
+            migrated += progress.getInt("migratedCount");
+            bookmark = progress.getString("bookmark");
+        } while (!bookmark.isEmpty());
+        return migrated;
+    }
+
+    /**
+     * Asset IDs of every page, following the bookmarks until they run out.
+     */
+    private static List<String> collectPages(final Function<String, String> query, final int pageSize) {
+        List<String> assetIDs = new ArrayList<>();
+        String bookmark = "";
+        do {
+            JSONObject page = new JSONObject(query.apply(bookmark));
+            JSONArray records = page.getJSONArray("records");
+            assertThat(records.length()).isLessThanOrEqualTo(pageSize).isEqualTo(page.getInt("fetchedRecordsCount"));
+            for (int i = 0; i < records.length(); i++) {
+                assetIDs.add(records.getJSONObject(i).getString("assetID"));
+            }
+            bookmark = page.getString("bookmark");
+        } while (!bookmark.isEmpty());
+        return assetIDs;
+    }
+
+    /**
+     * Simulate a transaction without committing it, to commit later against concurrent ones.
+     */
+    private InMemoryChaincodeStub simulate(final String function, final Function<Context, ?> call) {
+        InMemoryChaincodeStub stub = ledger.newTransaction(function);
+        Context ctx = contract.createContext(stub);
+        contract.beforeTransaction(ctx);
+        contract.afterTransaction(ctx, call.apply(ctx));
+        return stub;
+    }
+
+    /**
+     * The transaction's metered stub, taken after the call it counted.
+     */
+    private static MeteredChaincodeStub metered(final Context ctx, final Object result) {
+        return (MeteredChaincodeStub) ctx.getStub();
+    }
+
+    private static String assetKey(final String assetID) {
+        return new CompositeKey(AssetContract.ASSET_KEY_TYPE, assetID).toString();
+    }
+
+    private static byte[] legacyAsset(final String assetID, final String owner, final int value) {
+        return new JSONObject()
+                .put("assetID", assetID)
+                .put("name", "name " + assetID)
+                .put("description", "")
+                .put("owner", owner)
+                .put("value", value)
+                .toString()
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String code(final ChaincodeException e) {
+        return new String(e.getPayload(), StandardCharsets.UTF_8);
+    }
+}
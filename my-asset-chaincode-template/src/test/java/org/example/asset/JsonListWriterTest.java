@@ -0,0 +1,65 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.example.asset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+class JsonListWriterTest {
+
+    @Test
+    void splicesStoredValuesIntoArray() {
+        String json = JsonListWriter.array()
+                .append(bytes("{\"assetID\":\"a\"}"))
+                .append(bytes("{\"assetID\":\"b\"}"))
+                .end();
+
+        assertThat(json).isEqualTo("[{\"assetID\":\"a\"},{\"assetID\":\"b\"}]");
+        assertThat(JsonListWriter.array().end()).isEqualTo("[]");
+    }
+
+    @Test
+    void writesPageWithMetadata() {
+        JsonListWriter page = JsonListWriter.page();
+        page.append(bytes("{\"n\":1}"));
+        page.beginObject().field("version", "1.0.0").field("publisher", (String) null).field("count", 2).endObject();
+
+        JSONObject result = new JSONObject(page.endPage(2, "next\"key"));
+        assertThat(result.getInt("fetchedRecordsCount")).isEqualTo(2);
+        assertThat(result.getString("bookmark")).isEqualTo("next\"key");
+        JSONObject built = result.getJSONArray("records").getJSONObject(1);
+        assertThat(built.getString("version")).isEqualTo("1.0.0");
+        assertThat(built.has("publisher")).isFalse();
+    }
+
+    @Test
+    void escapesControlCharactersAndQuotes() {
+        String json = JsonListWriter.array().beginObject().field("name", "a\"b\\c\n\u0001é").endObject().end();
+
+        assertThat(json).isEqualTo("[{\"name\":\"a\\\"b\\\\c\\u000a\\u0001é\"}]");
+    }
+
+    @Test
+    void growsPastInitialCapacity() {
+        JsonListWriter page = JsonListWriter.page();
+        String value = "{\"description\":\"" + "x".repeat(1000) + "\"}";
+        for (int i = 0; i < 100; i++) {
+            page.append(bytes(value));
+        }
+
+        JSONArray records = new JSONObject(page.endPage(100, "")).getJSONArray("records");
+        assertThat(records.length()).isEqualTo(100);
+        assertThat(page.size()).isEqualTo(100);
+    }
+
+    private static byte[] bytes(final String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.example.asset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class MerkleTreeTest {
+
+    @Test
+    void proofOfEveryLeafVerifiesAgainstRoot() {
+        for (int size = 1; size <= 33; size++) {
+            List<byte[]> leaves = leaves(size);
+            MerkleTree tree = new MerkleTree(leaves);
+            for (int index = 0; index < size; index++) {
+                assertThat(verify(leaves.get(index), index, size, tree.proof(index), tree.root()))
+                        .as("leaf %d of %d", index, size)
+                        .isTrue();
+            }
+        }
+    }
+
+    @Test
+    void proofDoesNotVerifyAnotherLeaf() {
+        List<byte[]> leaves = leaves(6);
+        MerkleTree tree = new MerkleTree(leaves);
+        byte[] changed = MerkleTree.leaf("1.0.2", "hash2", "DISCONTINUED");
+
+        assertThat(verify(changed, 2, 6, tree.proof(2), tree.root())).isFalse();
+        assertThat(verify(leaves.get(2), 3, 6, tree.proof(2), tree.root())).isFalse();
+    }
+
+    @Test
+    void carriesOddLastNodeUpUnchanged() {
+        List<byte[]> leaves = leaves(3);
+        MerkleTree tree = new MerkleTree(leaves);
+
+        byte[] expected = MerkleTree.node(MerkleTree.node(leaves.get(0), leaves.get(1)), leaves.get(2));
+        assertThat(tree.root()).isEqualTo(expected);
+        assertThat(tree.proof(2)).hasSize(1);
+        assertThat(tree.height()).isEqualTo(3);
+        assertThat(tree.level(1)[1]).isEqualTo(leaves.get(2));
+    }
+
+    @Test
+    void rootOfEmptyTreeIsHashOfNoInput() throws NoSuchAlgorithmException {
+        byte[] expected = MessageDigest.getInstance("SHA-256").digest();
+
+        assertThat(new MerkleTree(new ArrayList<>()).root()).isEqualTo(expected);
+        assertThat(MerkleTree.emptyRoot()).isEqualTo(expected);
+    }
+
+    @Test
+    void leafLengthPrefixesFields() {
+        // Without the length prefixes both would hash the same bytes
+        assertThat(MerkleTree.leaf("1.0.0", "ab", "ACTIVE"))
+                .isNotEqualTo(MerkleTree.leaf("1.0.0a", "b", "ACTIVE"));
+        assertThat(MerkleTree.leaf("1.0.0", null, "ACTIVE")).isEqualTo(MerkleTree.leaf("1.0.0", "", "ACTIVE"));
+    }
+
+    @Test
+    void hexEncodesLowerCase() {
+        assertThat(MerkleTree.hex(new byte[] {0x00, 0x7f, (byte) 0x80, (byte) 0xff})).isEqualTo("007f80ff");
+    }
+
+    private static List<byte[]> leaves(final int size) {
+        List<byte[]> leaves = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            leaves.add(MerkleTree.leaf("1.0." + i, "hash" + i, "ACTIVE"));
+        }
+        return leaves;
+    }
+
+    /**
+     * Check a proof the way a client does, following the rules in the MerkleTree docs.
+     */
+    static boolean verify(final byte[] leaf, final int index, final int leafCount,
+                          final List<byte[]> path, final byte[] root) {
+        byte[] hash = leaf;
+        int next = 0;
+        for (int i = index, n = leafCount; n > 1; i /= 2, n = (n + 1) / 2) {
+            if (i == n - 1 && n % 2 == 1) {
+                continue;
+            }
+            if (next == path.size()) {
+                return false;
+            }
+            byte[] sibling = path.get(next++);
+            hash = i % 2 == 1 ? MerkleTree.node(sibling, hash) : MerkleTree.node(hash, sibling);
+        }
+        return next == path.size() && Arrays.equals(hash, root);
+    }
+
+    static byte[] unhex(final String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return bytes;
+    }
+
+    static List<byte[]> unhex(final List<String> hexes) {
+        List<byte[]> bytes = new ArrayList<>(hexes.size());
+        for (String hex : hexes) {
+            bytes.add(unhex(hex));
+        }
+        return bytes;
+    }
+}
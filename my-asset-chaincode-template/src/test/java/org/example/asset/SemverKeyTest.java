@@ -0,0 +1,94 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.example.asset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class SemverKeyTest {
+
+    @Test
+    void sortsInSemverPrecedence() {
+        // The precedence example of semver 2.0.0, section 11
+        assertSortsAs("1.0.0-alpha", "1.0.0-alpha.1", "1.0.0-alpha.beta", "1.0.0-beta", "1.0.0-beta.2",
+                "1.0.0-beta.11", "1.0.0-rc.1", "1.0.0", "2.0.0", "2.1.0", "2.1.1");
+    }
+
+    @Test
+    void ordersNumbersByValue() {
+        assertSortsAs("0.0.9", "0.0.10", "0.0.100", "1.9.0", "1.10.0", "9.0.0", "10.0.0", "12345678901.0.0");
+    }
+
+    @Test
+    void ordersNumericPrereleaseIdentifiersBeforeAlphanumeric() {
+        assertSortsAs("1.0.0-2", "1.0.0-10", "1.0.0-10.1", "1.0.0-a", "1.0.0-a-b", "1.0.0-b");
+    }
+
+    @Test
+    void sortsNonSemverAfterEverySemver() {
+        assertSortsAs("0.0.1", "99999.0.0", "1.0", "latest", "v1.0.0");
+        assertThat(SemverKey.encode("1.0")).isEqualTo("x1.0");
+    }
+
+    @Test
+    void keepsBuildMetadataDistinctWithoutChangingPrecedence() {
+        assertThat(SemverKey.encode("1.0.0+build.1")).isNotEqualTo(SemverKey.encode("1.0.0"));
+        assertSortsAs("1.0.0-rc.1+build.5", "1.0.0", "1.0.0+build.1", "1.0.1");
+    }
+
+    @Test
+    void boundsIncludeEveryBuildOfTheirVersion() {
+        List<String> keys = new ArrayList<>();
+        for (String version : List.of("1.0.0-rc.1", "1.0.0-rc.1.1", "1.0.0", "1.0.0+build.1", "1.0.0+zz", "1.0.1")) {
+            keys.add(SemverKey.encode(version));
+        }
+
+        assertThat(inRange(keys, "1.0.0+build.1", "1.0.0"))
+                .containsExactly(SemverKey.encode("1.0.0"), SemverKey.encode("1.0.0+build.1"), SemverKey.encode("1.0.0+zz"));
+        assertThat(inRange(keys, "1.0.0-rc.1+b", "1.0.0-rc.1")).containsExactly(SemverKey.encode("1.0.0-rc.1"));
+        assertThat(SemverKey.upperBound("latest")).isEqualTo(SemverKey.encode("latest"));
+    }
+
+    @Test
+    void extractsPrerelease() {
+        assertThat(SemverKey.prerelease("2.0.0-beta.3")).isEqualTo("beta.3");
+        assertThat(SemverKey.prerelease("2.0.0-beta.3+exp")).isEqualTo("beta.3");
+        assertThat(SemverKey.prerelease("2.0.0")).isNull();
+        assertThat(SemverKey.prerelease("2.0-beta")).isNull();
+    }
+
+    private static List<String> inRange(final List<String> keys, final String from, final String to) {
+        List<String> matched = new ArrayList<>();
+        for (String key : keys) {
+            if (InMemoryLedger.KEY_ORDER.compare(key, SemverKey.lowerBound(from)) >= 0
+                    && InMemoryLedger.KEY_ORDER.compare(key, SemverKey.upperBound(to)) <= 0) {
+                matched.add(key);
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * Encoded keys, shuffled and sorted in state database order, come back in the given order.
+     */
+    private static void assertSortsAs(final String... versions) {
+        List<String> keys = new ArrayList<>();
+        for (String version : versions) {
+            keys.add(SemverKey.encode(version));
+        }
+        List<String> sorted = new ArrayList<>(keys);
+        Collections.shuffle(sorted, new Random(versions.length));
+        sorted.sort(InMemoryLedger.KEY_ORDER);
+
+        assertThat(sorted).as("keys of %s", Arrays.toString(versions)).containsExactlyElementsOf(keys);
+    }
+}
@@ -0,0 +1,484 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.example.asset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.example.asset.InMemoryLedger.ValidationCode;
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.shim.ChaincodeException;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SoftwareReleaseContractTest {
+
+    private static final String PACKAGE = "com.example.app";
+    private static final String PUBLISHER = "Org1MSP";
+
+    private final SoftwareReleaseContract contract = new SoftwareReleaseContract();
+    private InMemoryLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        ledger = new InMemoryLedger();
+    }
+
+    @Test
+    void publishTagsReleaseAndRejectsDuplicates() {
+        publish(PACKAGE, "1.0.0");
+        publish(PACKAGE, "1.1.0-beta.1");
+
+        assertThat(resolveTag(PACKAGE, "latest").getVersion()).isEqualTo("1.0.0");
+        assertThat(resolveTag(PACKAGE, "beta").getVersion()).isEqualTo("1.1.0-beta.1");
+        assertThat(ledger.evaluate(contract, "GetRelease", ctx -> contract.GetRelease(ctx, PACKAGE, "1.0.0"))
+                .getPublisher()).isEqualTo(PUBLISHER);
+
+        assertThatThrownBy(() -> publish(PACKAGE, "1.0.0"))
+                .isInstanceOfSatisfying(ChaincodeException.class,
+                        e -> assertThat(code(e)).isEqualTo("RELEASE_ALREADY_EXISTS"));
+    }
+
+    @Test
+    void discontinueMovesTagToHighestActiveRelease() {
+        publish(PACKAGE, "1.0.0");
+        publish(PACKAGE, "1.2.0");
+        publish(PACKAGE, "1.1.0");
+
+        assertThat(resolveTag(PACKAGE, "latest").getVersion()).isEqualTo("1.1.0");
+        discontinue(PACKAGE, "1.1.0");
+        assertThat(resolveTag(PACKAGE, "latest").getVersion()).isEqualTo("1.2.0");
+        discontinue(PACKAGE, "1.2.0");
+        discontinue(PACKAGE, "1.0.0");
+
+        assertThatThrownBy(() -> resolveTag(PACKAGE, "latest"))
+                .isInstanceOfSatisfying(ChaincodeException.class, e -> assertThat(code(e)).isEqualTo("TAG_NOT_FOUND"));
+    }
+
+    @Test
+    void concurrentPublishesOfDifferentPackagesCommit() {
+        InMemoryChaincodeStub first = simulate("PublishRelease", ctx -> contract.PublishRelease(ctx, PACKAGE, "1.0.0", "a"));
+        InMemoryChaincodeStub second = simulate("PublishRelease", ctx -> contract.PublishRelease(ctx, "org.other", "1.0.0", "a"));
+
+        assertThat(ledger.commit(first)).isEqualTo(ValidationCode.VALID);
+        assertThat(ledger.commit(second)).isEqualTo(ValidationCode.VALID);
+        assertThat(lookupByHash("a")).hasSize(2);
+    }
+
+    @Test
+    void concurrentPublishesOfOnePackageCommit() {
+        InMemoryChaincodeStub first = simulate("PublishRelease", ctx -> contract.PublishRelease(ctx, PACKAGE, "1.0.0", "a"));
+        InMemoryChaincodeStub second = simulate("PublishRelease", ctx -> contract.PublishRelease(ctx, PACKAGE, "1.0.1", "b"));
+
+        assertThat(ledger.commit(first)).isEqualTo(ValidationCode.VALID);
+        assertThat(ledger.commit(second)).isEqualTo(ValidationCode.VALID);
+        assertThat(root(PACKAGE).getInt("leafCount")).isEqualTo(2);
+    }
+
+    @Test
+    void commitRacingAPublishIsRetried() {
+        publish(PACKAGE, "1.0.0");
+        commitRoot(PACKAGE);
+        publish(PACKAGE, "1.1.0");
+
+        InMemoryChaincodeStub commit = simulate("CommitPackageRoot", ctx -> contract.CommitPackageRoot(ctx, PACKAGE));
+        publish(PACKAGE, "1.2.0");
+
+        // The new pending leaf is a phantom in the commit's scan; the publish stands
+        assertThat(ledger.commit(commit)).isEqualTo(ValidationCode.PHANTOM_READ_CONFLICT);
+        assertThat(root(PACKAGE).getInt("pendingCount")).isEqualTo(2);
+        commitRoot(PACKAGE);
+        assertThat(root(PACKAGE).getInt("pendingCount")).isZero();
+        assertThat(root(PACKAGE).getInt("leafCount")).isEqualTo(3);
+    }
+
+    @Test
+    void inclusionProofsVerifyAgainstRoot() {
+        for (String version : List.of("1.0.0", "0.9.0", "1.1.0")) {
+            publish(PACKAGE, version);
+        }
+        commitRoot(PACKAGE);
+        for (String version : List.of("1.0.1", "2.0.0-rc.1", "1.2.0", "0.1.0")) {
+            publish(PACKAGE, version);
+        }
+        discontinue(PACKAGE, "1.0.1");
+
+        // Once with the later changes folded in on read, once after committing them
+        for (int pending : new int[] {5, 0}) {
+            JSONObject root = root(PACKAGE);
+            assertThat(root.getInt("pendingCount")).isEqualTo(pending);
+            JSONObject result = new JSONObject(ledger.evaluate(contract, "GetInclusionProofs",
+                    ctx -> contract.GetInclusionProofs(ctx, PACKAGE, "")));
+            assertThat(result.getString("root")).isEqualTo(root.getString("root"));
+            assertThat(result.getInt("leafCount")).isEqualTo(7);
+
+            JSONArray proofs = result.getJSONArray("proofs");
+            assertThat(proofs.length()).isEqualTo(7);
+            for (int i = 0; i < proofs.length(); i++) {
+                JSONObject proof = proofs.getJSONObject(i);
+                byte[] leaf = MerkleTree.leaf(proof.getString("version"), proof.getString("fileHash"),
+                        proof.getString("status"));
+                assertThat(MerkleTreeTest.verify(leaf, proof.getInt("index"), 7, MerkleTreeTest.unhex(paths(proof)),
+                        MerkleTreeTest.unhex(result.getString("root"))))
+                        .as("proof of %s", proof.getString("version"))
+                        .isTrue();
+            }
+            if (pending > 0) {
+                assertThat(commitRoot(PACKAGE)).isEqualTo(root.getString("root"));
+            }
+        }
+
+        JSONObject selected = new JSONObject(ledger.evaluate(contract, "GetInclusionProofs",
+                ctx -> contract.GetInclusionProofs(ctx, PACKAGE, "1.0.1 3.0.0")));
+        JSONArray selectedProofs = selected.getJSONArray("proofs");
+        assertThat(selectedProofs.length()).isEqualTo(1);
+        assertThat(selectedProofs.getJSONObject(0).getString("status")).isEqualTo("DISCONTINUED");
+    }
+
+    @Test
+    void maintainedRootMatchesRebuild() {
+        List<byte[]> leaves = new ArrayList<>();
+        for (int i = 0; i < 11; i++) {
+            publish(PACKAGE, "1." + i + ".0");
+            leaves.add(MerkleTree.leaf("1." + i + ".0", "hash-1." + i + ".0", "ACTIVE"));
+            if (i % 4 == 0) {
+                commitRoot(PACKAGE);
+            }
+        }
+        discontinue(PACKAGE, "1.4.0");
+        leaves.set(4, MerkleTree.leaf("1.4.0", "hash-1.4.0", "DISCONTINUED"));
+
+        assertThat(root(PACKAGE).getString("root")).isEqualTo(MerkleTree.hex(new MerkleTree(leaves).root()));
+        assertThat(commitRoot(PACKAGE)).isEqualTo(MerkleTree.hex(new MerkleTree(leaves).root()));
+    }
+
+    @Test
+    void discontinuingLegacyReleaseAddsItsLeaf() {
+        publish(PACKAGE, "1.0.0");
+        publish(PACKAGE, "1.1.0");
+        commitRoot(PACKAGE);
+        ledger.load(PACKAGE + ":0.9.0", legacyRelease(PACKAGE, "0.9.0", "ACTIVE"));
+
+        discontinue(PACKAGE, "0.9.0");
+        commitRoot(PACKAGE);
+
+        // A full rebuild over the leaves in their tree order
+        List<byte[]> leaves = List.of(MerkleTree.leaf("1.0.0", "hash-1.0.0", "ACTIVE"),
+                MerkleTree.leaf("1.1.0", "hash-1.1.0", "ACTIVE"),
+                MerkleTree.leaf("0.9.0", "hash-0.9.0", "DISCONTINUED"));
+        JSONObject root = root(PACKAGE);
+        assertThat(root.getInt("leafCount")).isEqualTo(3);
+        assertThat(root.getString("root")).isEqualTo(MerkleTree.hex(new MerkleTree(leaves).root()));
+    }
+
+    @Test
+    void migratesLegacyReleases() {
+        ledger.load(PACKAGE + ":1.0.0", legacyRelease(PACKAGE, "1.0.0", "ACTIVE"));
+        ledger.load(PACKAGE + ":1.1.0", legacyRelease(PACKAGE, "1.1.0", "ACTIVE"));
+        ledger.load(PACKAGE + ":0.9.0", legacyRelease(PACKAGE, "0.9.0", "DISCONTINUED"));
+        ledger.load("org.other:2.0.0", legacyRelease("org.other", "2.0.0", "ACTIVE"));
+        ledger.load("asset1", "{\"assetID\":\"asset1\",\"owner\":\"Org1\",\"value\":10}".getBytes(StandardCharsets.UTF_8));
+
+        // Unmigrated releases are still found and cannot be published again
+        assertThat(ledger.evaluate(contract, "ValidateRelease",
+                ctx -> contract.ValidateRelease(ctx, PACKAGE, "1.0.0", "hash-1.0.0"))).isTrue();
+        assertThatThrownBy(() -> publish(PACKAGE, "1.1.0"))
+                .isInstanceOfSatisfying(ChaincodeException.class,
+                        e -> assertThat(code(e)).isEqualTo("RELEASE_ALREADY_EXISTS"));
+
+        assertThat(migrate(2)).isEqualTo(4);
+        assertThat(ledger.getState(PACKAGE + ":1.0.0")).isNull();
+        assertThat(ledger.getState("org.other:2.0.0")).isNull();
+        assertThat(ledger.getState("asset1")).isNotNull();
+        assertThat(ledger.getState(releaseKey(PACKAGE, "0.9.0"))).isNotNull();
+        assertThat(resolveTag(PACKAGE, "latest").getVersion()).isEqualTo("1.1.0");
+        assertThat(lookupByHash("hash-0.9.0")).hasSize(1);
+        assertThat(root(PACKAGE).getInt("leafCount")).isEqualTo(3);
+        assertThat(ledger.evaluate(contract, "ValidateRelease",
+                ctx -> contract.ValidateRelease(ctx, PACKAGE, "0.9.0", "hash-0.9.0"))).isFalse();
+    }
+
+    @Test
+    void discontinuingLegacyReleaseMigratesIt() {
+        ledger.load(PACKAGE + ":1.0.0", legacyRelease(PACKAGE, "1.0.0", "ACTIVE"));
+
+        discontinue(PACKAGE, "1.0.0");
+
+        assertThat(ledger.getState(PACKAGE + ":1.0.0")).isNull();
+        assertThat(ledger.evaluate(contract, "GetRelease", ctx -> contract.GetRelease(ctx, PACKAGE, "1.0.0"))
+                .getStatus()).isEqualTo("DISCONTINUED");
+        assertThat(lookupByHash("hash-1.0.0")).hasSize(1);
+    }
+
+    @Test
+    void completedMigrationStopsLegacyLookups() {
+        publish(PACKAGE, "1.0.0");
+        assertThat(migrate(10)).isZero();
+        // Migrating again does not rewrite the marker
+        assertThat(simulate("MigrateLegacyReleases", ctx -> contract.MigrateLegacyReleases(ctx, 10, "")).writeSet())
+                .isEmpty();
+        ledger.load(PACKAGE + ":0.9.0", legacyRelease(PACKAGE, "0.9.0", "ACTIVE"));
+
+        assertThat(ledger.evaluate(contract, "ValidateRelease",
+                ctx -> contract.ValidateRelease(ctx, PACKAGE, "0.9.0", "hash-0.9.0"))).isFalse();
+        // Publishing reads the release and the marker, not the legacy key
+        MeteredChaincodeStub published = ledger.submit(contract, "PublishRelease",
+                ctx -> metered(ctx, contract.PublishRelease(ctx, PACKAGE, "1.1.0", "hash-1.1.0")));
+        assertThat(published.getStateReads()).isEqualTo(2);
+    }
+
+    @Test
+    void releaseHistoryPagesNewestFirst() {
+        publish(PACKAGE, "1.0.0");
+        discontinue(PACKAGE, "1.0.0");
+
+        JSONObject first = history(1, "");
+        assertThat(first.getJSONArray("records").getJSONObject(0).getJSONObject("value").getString("status"))
+                .isEqualTo("DISCONTINUED");
+        String cursor = first.getString("cursor");
+        assertThat(cursor).isNotEmpty();
+
+        JSONObject second = history(1, cursor);
+        assertThat(second.getJSONArray("records").getJSONObject(0).getJSONObject("value").getString("status"))
+                .isEqualTo("ACTIVE");
+        assertThat(second.getString("cursor")).isEmpty();
+
+        assertThatThrownBy(() -> history(1, "unknown"))
+                .isInstanceOfSatisfying(ChaincodeException.class, e -> assertThat(code(e)).isEqualTo("INVALID_CURSOR"));
+    }
+
+    @Test
+    void releaseHistoryKeepsEntriesFromBeforeMigration() {
+        InMemoryChaincodeStub legacy = ledger.newTransaction("LegacyPublish");
+        legacy.putState(PACKAGE + ":1.0.0", legacyRelease(PACKAGE, "1.0.0", "ACTIVE"));
+        assertThat(ledger.commit(legacy)).isEqualTo(ValidationCode.VALID);
+        ledger.submit(contract, "MigrateLegacyReleases", ctx -> contract.MigrateLegacyReleases(ctx, 10, ""));
+        discontinue(PACKAGE, "1.0.0");
+
+        List<String> txIds = new ArrayList<>();
+        List<String> statuses = new ArrayList<>();
+        String cursor = "";
+        do {
+            JSONObject page = history(1, cursor);
+            JSONObject record = page.getJSONArray("records").getJSONObject(0);
+            // The legacy key's delete only marks the move
+            assertThat(record.getBoolean("isDelete")).isFalse();
+            txIds.add(record.getString("txId"));
+            statuses.add(record.getJSONObject("value").getString("status"));
+            cursor = page.getString("cursor");
+        } while (!cursor.isEmpty());
+
+        assertThat(statuses).containsExactly("DISCONTINUED", "ACTIVE", "ACTIVE");
+        assertThat(txIds).doesNotHaveDuplicates().endsWith(legacy.getTxId());
+    }
+
+    @Test
+    void listVersionsPagesInSemverOrder() {
+        List<String> versions = List.of("0.9.0", "1.0.0-alpha", "1.0.0-alpha.1", "1.0.0-beta.2", "1.0.0-beta.11",
+                "1.0.0", "1.0.0+build.7", "1.2.0", "1.10.0", "2.0.0");
+        StringBuilder manifest = new StringBuilder();
+        for (int i = versions.size() - 1; i >= 0; i--) {
+            manifest.append(PACKAGE).append(' ').append(versions.get(i)).append(" hash").append(i).append('\n');
+        }
+        ledger.submit(contract, "PublishReleases", ctx -> contract.PublishReleases(ctx, manifest.toString()));
+        publish("com.example.app2", "0.0.1");
+
+        assertThat(listVersions("", "", 2)).containsExactlyElementsOf(versions);
+        assertThat(listVersions("1.0.0-beta.2", "1.2.0", 2))
+                .containsExactly("1.0.0-beta.2", "1.0.0-beta.11", "1.0.0", "1.0.0+build.7", "1.2.0");
+        // Build metadata does not narrow either bound
+        assertThat(listVersions("1.0.0+build.7", "1.0.0", 2)).containsExactly("1.0.0", "1.0.0+build.7");
+    }
+
+    @Test
+    void publisherPagesFollowBookmarks() {
+        for (int i = 0; i < 7; i++) {
+            publish(PACKAGE, "1.0." + i);
+        }
+        ledger.withClient("Org2MSP");
+        publish(PACKAGE, "2.0.0");
+
+        List<String> versions = new ArrayList<>();
+        String bookmark = "";
+        int pages = 0;
+        do {
+            String page = bookmark;
+            JSONObject result = new JSONObject(ledger.evaluate(contract, "GetReleasesByPublisher",
+                    ctx -> contract.GetReleasesByPublisher(ctx, PUBLISHER, 3, page)));
+            JSONArray records = result.getJSONArray("records");
+            assertThat(records.length()).isLessThanOrEqualTo(3).isEqualTo(result.getInt("fetchedRecordsCount"));
+            for (int i = 0; i < records.length(); i++) {
+                versions.add(records.getJSONObject(i).getString("version"));
+            }
+            bookmark = result.getString("bookmark");
+            pages++;
+        } while (!bookmark.isEmpty());
+
+        assertThat(versions).containsExactly("1.0.0", "1.0.1", "1.0.2", "1.0.3", "1.0.4", "1.0.5", "1.0.6");
+        assertThat(pages).isEqualTo(3);
+    }
+
+    @Test
+    void countsStateCalls() {
+        for (int i = 0; i < 8; i++) {
+            publish(PACKAGE, "1.0." + i);
+        }
+        commitRoot(PACKAGE);
+        ledger.load(PACKAGE + ":0.1.0", legacyRelease(PACKAGE, "0.1.0", "ACTIVE"));
+
+        // Release, migration marker and legacy key read; release, two index
+        // entries, tag and pending leaf written
+        MeteredChaincodeStub publish = ledger.submit(contract, "PublishRelease",
+                ctx -> metered(ctx, contract.PublishRelease(ctx, "org.other", "1.0.0", "a")));
+        assertThat(publish.getStateReads()).isEqualTo(3);
+        assertThat(publish.getStateWrites()).isEqualTo(5);
+
+        MeteredChaincodeStub resolve = ledger.evaluate(contract, "ResolveTag",
+                ctx -> metered(ctx, contract.ResolveTag(ctx, PACKAGE, "latest")));
+        assertThat(resolve.getStateReads()).isEqualTo(1);
+        assertThat(resolve.getScannedRows()).isZero();
+        assertThat(resolve.getStateWrites()).isZero();
+
+        MeteredChaincodeStub legacy = ledger.evaluate(contract, "GetRelease",
+                ctx -> metered(ctx, contract.GetRelease(ctx, PACKAGE, "0.1.0")));
+        assertThat(legacy.getStateReads()).isEqualTo(3);
+
+        // Root, leaf position and release, then one sibling per level of 8 leaves
+        MeteredChaincodeStub proof = ledger.evaluate(contract, "GetInclusionProofs",
+                ctx -> metered(ctx, contract.GetInclusionProofs(ctx, PACKAGE, "1.0.5")));
+        assertThat(proof.getStateReads()).isEqualTo(6);
+        assertThat(proof.getScannedRows()).isZero();
+
+        MeteredChaincodeStub lookup = ledger.evaluate(contract, "LookupByHash",
+                ctx -> metered(ctx, contract.LookupByHash(ctx, "hash-1.0.3")));
+        assertThat(lookup.getStateReads()).isZero();
+        assertThat(lookup.getScannedRows()).isEqualTo(1);
+
+        MeteredChaincodeStub page = ledger.evaluate(contract, "ListVersions",
+                ctx -> metered(ctx, contract.ListVersions(ctx, PACKAGE, "", "", 5, "")));
+        assertThat(page.getStateReads()).isZero();
+        assertThat(page.getScannedRows()).isEqualTo(5);
+        assertThat(page.getBytesRead()).isPositive();
+    }
+
+    private SoftwareRelease publish(final String packageId, final String version) {
+        return ledger.submit(contract, "PublishRelease",
+                ctx -> contract.PublishRelease(ctx, packageId, version, "hash-" + version));
+    }
+
+    private SoftwareRelease discontinue(final String packageId, final String version) {
+        return ledger.submit(contract, "DiscontinueRelease", ctx -> contract.DiscontinueRelease(ctx, packageId, version));
+    }
+
+    private SoftwareRelease resolveTag(final String packageId, final String tag) {
+        return ledger.evaluate(contract, "ResolveTag", ctx -> contract.ResolveTag(ctx, packageId, tag));
+    }
+
+    private JSONArray lookupByHash(final String fileHash) {
+        return new JSONArray(ledger.evaluate(contract, "LookupByHash", ctx -> contract.LookupByHash(ctx, fileHash)));
+    }
+
+    private JSONObject root(final String packageId) {
+        return new JSONObject(ledger.evaluate(contract, "GetPackageRoot", ctx -> contract.GetPackageRoot(ctx, packageId)));
+    }
+
+    private String commitRoot(final String packageId) {
+        return ledger.submit(contract, "CommitPackageRoot", ctx -> contract.CommitPackageRoot(ctx, packageId));
+    }
+
+    /**
+     * Run MigrateLegacyReleases to the end of the legacy range.
+     *
+     * @return the number of releases migrated
+     */
+    private int migrate(final int pageSize) {
+        int migrated = 0;
+        String bookmark = "";
+        do {
+            String page = bookmark;
+            JSONObject progress = new JSONObject(ledger.submit(contract, "MigrateLegacyReleases",
+                    ctx -> contract.MigrateLegacyReleases(ctx, pageSize, page)));
+            migrated += progress.getInt("migratedCount");
+            bookmark = progress.getString("bookmark");
+        } while (!bookmark.isEmpty());
+        return migrated;
+    }
+
+    private JSONObject history(final int pageSize, final String cursor) {
+        return new JSONObject(ledger.evaluate(contract, "GetReleaseHistory",
+                ctx -> contract.GetReleaseHistory(ctx, PACKAGE, "1.0.0", pageSize, cursor)));
+    }
+
+    private List<String> listVersions(final String from, final String to, final int pageSize) {
+        List<String> versions = new ArrayList<>();
+        String bookmark = "";
+        do {
+            String page = bookmark;
+            JSONObject result = new JSONObject(ledger.evaluate(contract, "ListVersions",
+                    ctx -> contract.ListVersions(ctx, PACKAGE, from, to, pageSize, page)));
+            JSONArray records = result.getJSONArray("records");
+            assertThat(records.length()).isLessThanOrEqualTo(pageSize);
+            for (int i = 0; i < records.length(); i++) {
+                versions.add(records.getJSONObject(i).getString("version"));
+            }
+            bookmark = result.getString("bookmark");
+        } while (!bookmark.isEmpty());
+        return versions;
+    }
+
+    /**
+     * Simulate a transaction without committing it, to commit later against concurrent ones.
+     */
+    private InMemoryChaincodeStub simulate(final String function, final Function<Context, ?> call) {
+        InMemoryChaincodeStub stub = ledger.newTransaction(function);
+        Context ctx = contract.createContext(stub);
+        contract.beforeTransaction(ctx);
+        contract.afterTransaction(ctx, call.apply(ctx));
+        return stub;
+    }
+
+    /**
+     * The transaction's metered stub, taken after the call it counted.
+     */
+    private static MeteredChaincodeStub metered(final Context ctx, final Object result) {
+        return (MeteredChaincodeStub) ctx.getStub();
+    }
+
+    private static String releaseKey(final String packageId, final String version) {
+        return new CompositeKey(SoftwareReleaseContract.RELEASE_KEY_TYPE, packageId, SemverKey.encode(version)).toString();
+    }
+
+    private static byte[] legacyRelease(final String packageId, final String version, final String status) {
+        return new JSONObject()
+                .put("packageId", packageId)
+                .put("version", version)
+                .put("fileHash", "hash-" + version)
+                .put("status", status)
+                .put("publisher", PUBLISHER)
+                .toString()
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> paths(final JSONObject proof) {
+        JSONArray path = proof.getJSONArray("path");
+        List<String> hashes = new ArrayList<>(path.length());
+        for (int i = 0; i < path.length(); i++) {
+            hashes.add(path.getString(i));
+        }
+        return hashes;
+    }
+
+    private static String code(final ChaincodeException e) {
+        return new String(e.getPayload(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.example.asset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.shim.ChaincodeException;
+import org.hyperledger.fabric.shim.ResponseUtils;
+import org.junit.jupiter.api.Test;
+
+import io.prometheus.client.CollectorRegistry;
+
+class TransactionMetricsTest {
+
+    private final AssetContract contract = new AssetContract();
+    private final InMemoryLedger ledger = new InMemoryLedger();
+
+    @Test
+    void countsCodedFailureUnderItsCode() {
+        double before = errors("ReadAsset", "ASSET_NOT_FOUND");
+        int inFlight = InFlightTransactions.size();
+
+        Context ctx = started("ReadAsset");
+        assertThatThrownBy(() -> contract.ReadAsset(ctx, "missing"))
+                .isInstanceOfSatisfying(ChaincodeException.class,
+                        e -> TransactionMetrics.completed(ResponseUtils.newErrorResponse(e)));
+
+        assertThat(errors("ReadAsset", "ASSET_NOT_FOUND")).isEqualTo(before + 1);
+        assertThat(InFlightTransactions.size()).isEqualTo(inFlight);
+    }
+
+    @Test
+    void countsUncodedFailureAsUnexpected() {
+        double before = errors("GetAllAssets", TransactionMetrics.UNEXPECTED);
+        int inFlight = InFlightTransactions.size();
+
+        started("GetAllAssets");
+        // The shim answers any exception other than a ChaincodeException without a payload
+        TransactionMetrics.completed(ResponseUtils.newErrorResponse(new IllegalStateException("broken")));
+
+        assertThat(errors("GetAllAssets", TransactionMetrics.UNEXPECTED)).isEqualTo(before + 1);
+        assertThat(InFlightTransactions.size()).isEqualTo(inFlight);
+    }
+
+    @Test
+    void doesNotCountSuccessAgain() {
+        double before = errors("AssetExists", TransactionMetrics.UNEXPECTED);
+        int inFlight = InFlightTransactions.size();
+
+        Context ctx = started("AssetExists");
+        contract.afterTransaction(ctx, contract.AssetExists(ctx, "missing"));
+        TransactionMetrics.completed(ResponseUtils.newSuccessResponse(new byte[0]));
+
+        assertThat(errors("AssetExists", TransactionMetrics.UNEXPECTED)).isEqualTo(before);
+        assertThat(InFlightTransactions.size()).isEqualTo(inFlight);
+    }
+
+    @Test
+    void nextTransactionOnThreadClosesOutAbandonedOne() {
+        double before = errors("DeleteAsset", TransactionMetrics.UNEXPECTED);
+        int inFlight = InFlightTransactions.size();
+
+        // Nothing completes the first one, as when the peer launches the chaincode
+        started("DeleteAsset");
+        Context next = started("AssetExists");
+        contract.afterTransaction(next, contract.AssetExists(next, "missing"));
+
+        assertThat(errors("DeleteAsset", TransactionMetrics.UNEXPECTED)).isEqualTo(before + 1);
+        assertThat(InFlightTransactions.size()).isEqualTo(inFlight);
+    }
+
+    private Context started(final String function) {
+        Context ctx = contract.createContext(ledger.newTransaction(function));
+        contract.beforeTransaction(ctx);
+        return ctx;
+    }
+
+    private static double errors(final String function, final String code) {
+        Double value = CollectorRegistry.defaultRegistry.getSampleValue("chaincode_transaction_errors_total",
+                new String[] {"contract", "function", "code"}, new String[] {"assetcontract", function, code});
+        return value == null ? 0 : value;
+    }
+}
@@ -0,0 +1,668 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.example.asset;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import org.hyperledger.fabric.protos.peer.ChaincodeEvent;
+import org.hyperledger.fabric.protos.peer.QueryResponseMetadata;
+import org.hyperledger.fabric.protos.peer.SignedProposal;
+import org.hyperledger.fabric.shim.Chaincode.Response;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+import org.hyperledger.fabric.shim.ledger.KeyModification;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIteratorWithMetadata;
+
+import com.google.protobuf.ByteString;
+
+/**
+ * One simulated transaction against an {@link InMemoryLedger}.
+ *
+ * Reads see the state committed when the transaction started, never its
+ * own writes, as on a peer. Reads, range scans, writes and the event are
+ * recorded so that {@link InMemoryLedger#commit} can validate and apply
+ * them, and so callers can check how much state access a function does.
+ * As on a peer, a transaction that writes cannot also run paginated queries.
+ */
+public final class InMemoryChaincodeStub implements ChaincodeStub {
+
+    /**
+     * Start of the simple key range; composite keys sort before it.
+     */
+    private static final String SIMPLE_KEY_START = "\u0001";
+
+    /**
+     * Largest code point, which composite key attributes may not contain.
+     */
+    private static final String MAX_UNICODE_RUNE = "\uDBFF\uDFFF";
+
+    private final InMemoryLedger ledger;
+    private final String txId;
+    private final long snapshot;
+    private final String function;
+    private final List<String> parameters;
+    private final String creatorMspId;
+    private final byte[] creatorCertificate;
+    private final Instant timestamp = Instant.now();
+    private final Map<String, byte[]> transientData = new HashMap<>();
+
+    private final Map<String, Long> readSet = new HashMap<>();
+    private final List<RangeRead> rangeReads = new ArrayList<>();
+    private final NavigableMap<String, byte[]> writeSet = new TreeMap<>(InMemoryLedger.KEY_ORDER);
+    private final Map<String, byte[]> validationParameterWrites = new HashMap<>();
+    private final Map<String, NavigableMap<String, byte[]>> privateDataWrites = new HashMap<>();
+    private boolean paginatedQueryPerformed;
+    private ChaincodeEvent event;
+
+    private int stateReads;
+    private int stateWrites;
+    private int stateDeletes;
+    private int rangeQueries;
+    private int rangeRows;
+    private long bytesRead;
+    private long bytesWritten;
+
+    InMemoryChaincodeStub(final InMemoryLedger ledger, final String txId, final long snapshot,
+                          final String function, final String[] parameters,
+                          final String creatorMspId, final byte[] creatorCertificate) {
+        this.ledger = ledger;
+        this.txId = txId;
+        this.snapshot = snapshot;
+        this.function = function;
+        this.parameters = List.of(parameters);
+        this.creatorMspId = creatorMspId;
+        this.creatorCertificate = creatorCertificate;
+    }
+
+    /**
+     * A single range query as read by the transaction, re-checked at commit.
+     */
+    static final class RangeRead {
+        private final String startKey;
+        private final String endKey;
+        private final List<String> keys = new ArrayList<>();
+        private final List<Long> versions = new ArrayList<>();
+        private boolean exhausted;
+
+        RangeRead(final String startKey, final String endKey) {
+            this.startKey = startKey;
+            this.endKey = endKey;
+        }
+
+        /**
+         * True if the range, up to the last key the transaction read (or to
+         * its end if it read every result), would return the same results now.
+         */
+        boolean matches(final InMemoryLedger ledger) {
+            Iterator<Map.Entry<String, byte[]>> current = ledger.scan(startKey, endKey, Long.MAX_VALUE);
+            for (int i = 0; i < keys.size(); i++) {
+                if (!current.hasNext()) {
+                    return false;
+                }
+                String key = current.next().getKey();
+                if (!key.equals(keys.get(i)) || ledger.readSequence(key, Long.MAX_VALUE) != versions.get(i)) {
+                    return false;
+                }
+            }
+            return !exhausted || !current.hasNext();
+        }
+    }
+
+    // Recorded transaction effects
+
+    /**
+     * Keys read with {@link #getState} and the version each had.
+     */
+    public Map<String, Long> readSet() {
+        return Collections.unmodifiableMap(readSet);
+    }
+
+    /**
+     * Keys written by the transaction, with null for deletes.
+     */
+    public NavigableMap<String, byte[]> writeSet() {
+        return Collections.unmodifiableNavigableMap(writeSet);
+    }
+
+    List<RangeRead> rangeReads() {
+        return rangeReads;
+    }
+
+    Map<String, byte[]> validationParameterWrites() {
+        return validationParameterWrites;
+    }
+
+    Map<String, NavigableMap<String, byte[]>> privateDataWrites() {
+        return privateDataWrites;
+    }
+
+    public int getStateReads() {
+        return stateReads;
+    }
+
+    public int getStateWrites() {
+        return stateWrites;
+    }
+
+    public int getStateDeletes() {
+        return stateDeletes;
+    }
+
+    public int getRangeQueries() {
+        return rangeQueries;
+    }
+
+    /**
+     * Rows returned by all range and composite key queries.
+     */
+    public int getRangeRows() {
+        return rangeRows;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    public InMemoryChaincodeStub putTransient(final String key, final byte[] value) {
+        transientData.put(key, value);
+        return this;
+    }
+
+    // Arguments and transaction details
+
+    @Override
+    public List<byte[]> getArgs() {
+        List<byte[]> args = new ArrayList<>(parameters.size() + 1);
+        for (String arg : getStringArgs()) {
+            args.add(arg.getBytes(StandardCharsets.UTF_8));
+        }
+        return args;
+    }
+
+    @Override
+    public List<String> getStringArgs() {
+        List<String> args = new ArrayList<>(parameters.size() + 1);
+        args.add(function);
+        args.addAll(parameters);
+        return args;
+    }
+
+    @Override
+    public String getFunction() {
+        return function;
+    }
+
+    @Override
+    public List<String> getParameters() {
+        return parameters;
+    }
+
+    @Override
+    public String getTxId() {
+        return txId;
+    }
+
+    @Override
+    public String getChannelId() {
+        return ledger.getChannelId();
+    }
+
+    @Override
+    public Instant getTxTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * A serialized msp.SerializedIdentity: field 1 the MSP ID, field 2 the PEM certificate.
+     */
+    @Override
+    public byte[] getCreator() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeField(out, 1, creatorMspId.getBytes(StandardCharsets.UTF_8));
+        writeField(out, 2, creatorCertificate);
+        return out.toByteArray();
+    }
+
+    @Override
+    public Map<String, byte[]> getTransient() {
+        return Collections.unmodifiableMap(transientData);
+    }
+
+    @Override
+    public byte[] getBinding() {
+        return sha256(txId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public SignedProposal getSignedProposal() {
+        return SignedProposal.getDefaultInstance();
+    }
+
+    /**
+     * The peer's MSP ID; the simulated peer belongs to the client's organization.
+     */
+    @Override
+    public String getMspId() {
+        return creatorMspId;
+    }
+
+    @Override
+    public Response invokeChaincode(final String chaincodeName, final List<byte[]> args, final String channel) {
+        throw new UnsupportedOperationException("Chaincode-to-chaincode calls are not simulated");
+    }
+
+    // World state
+
+    @Override
+    public byte[] getState(final String key) {
+        ledger.roundTrip();
+        stateReads++;
+        readSet.putIfAbsent(key, ledger.readSequence(key, snapshot));
+        byte[] value = ledger.read(key, snapshot);
+        if (value == null) {
+            return new byte[0];
+        }
+        bytesRead += value.length;
+        return value.clone();
+    }
+
+    @Override
+    public void putState(final String key, final byte[] value) {
+        checkWrite(key);
+        if (value == null) {
+            throw new IllegalArgumentException("Value for key " + key + " must not be null");
+        }
+        ledger.roundTrip();
+        stateWrites++;
+        bytesWritten += value.length;
+        writeSet.put(key, value.clone());
+    }
+
+    @Override
+    public void delState(final String key) {
+        checkWrite(key);
+        ledger.roundTrip();
+        stateDeletes++;
+        writeSet.put(key, null);
+    }
+
+    @Override
+    public byte[] getStateValidationParameter(final String key) {
+        return ledger.getValidationParameter(key);
+    }
+
+    @Override
+    public void setStateValidationParameter(final String key, final byte[] value) {
+        checkWrite(key);
+        validationParameterWrites.put(key, value);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByRange(final String startKey, final String endKey) {
+        CompositeKey.validateSimpleKeys(startKey, endKey);
+        return range(simpleStart(startKey), emptyToNull(endKey));
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getStateByRangeWithPagination(
+            final String startKey, final String endKey, final int pageSize, final String bookmark) {
+        CompositeKey.validateSimpleKeys(startKey, endKey);
+        return page(simpleStart(startKey), emptyToNull(endKey), pageSize, bookmark, null);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(final String compositeKey) {
+        return getStateByPartialCompositeKey(partialKey(compositeKey));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(final String objectType,
+                                                                        final String... attributes) {
+        return getStateByPartialCompositeKey(new CompositeKey(objectType, attributes));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(final CompositeKey compositeKey) {
+        String prefix = compositeKey.toString();
+        return range(prefix, prefix + MAX_UNICODE_RUNE);
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getStateByPartialCompositeKeyWithPagination(
+            final CompositeKey compositeKey, final int pageSize, final String bookmark) {
+        String prefix = compositeKey.toString();
+        return page(prefix, prefix + MAX_UNICODE_RUNE, pageSize, bookmark, null);
+    }
+
+    @Override
+    public CompositeKey createCompositeKey(final String objectType, final String... attributes) {
+        return new CompositeKey(objectType, attributes);
+    }
+
+    @Override
+    public CompositeKey splitCompositeKey(final String compositeKey) {
+        return CompositeKey.parseCompositeKey(compositeKey);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getQueryResult(final String query) {
+        ledger.roundTrip();
+        rangeQueries++;
+        // Rich query results are not re-checked at commit, as on a peer
+        MangoSelector selector = MangoSelector.parse(query);
+        List<KeyValue> results = new ArrayList<>();
+        Iterator<Map.Entry<String, byte[]>> entries = ledger.scan("", null, snapshot);
+        while (entries.hasNext()) {
+            Map.Entry<String, byte[]> entry = entries.next();
+            if (selector.matches(entry.getValue())) {
+                results.add(keyValue(entry.getKey(), entry.getValue()));
+            }
+        }
+        return iterator(results.iterator());
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getQueryResultWithPagination(
+            final String query, final int pageSize, final String bookmark) {
+        return page("", null, pageSize, bookmark, MangoSelector.parse(query));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyModification> getHistoryForKey(final String key) {
+        ledger.roundTrip();
+        return iterator(ledger.history(key, snapshot).iterator());
+    }
+
+    // Private data
+
+    @Override
+    public byte[] getPrivateData(final String collection, final String key) {
+        ledger.roundTrip();
+        byte[] value = ledger.collection(collection).get(key);
+        return value == null ? new byte[0] : value.clone();
+    }
+
+    @Override
+    public byte[] getPrivateDataHash(final String collection, final String key) {
+        byte[] value = ledger.collection(collection).get(key);
+        return value == null ? new byte[0] : sha256(value);
+    }
+
+    @Override
+    public byte[] getPrivateDataValidationParameter(final String collection, final String key) {
+        return ledger.getValidationParameter(collection + CompositeKey.NAMESPACE + key);
+    }
+
+    @Override
+    public void putPrivateData(final String collection, final String key, final byte[] value) {
+        checkWrite(key);
+        ledger.roundTrip();
+        privateDataWrites.computeIfAbsent(collection, c -> new TreeMap<>(InMemoryLedger.KEY_ORDER))
+                .put(key, value.clone());
+    }
+
+    @Override
+    public void setPrivateDataValidationParameter(final String collection, final String key, final byte[] value) {
+        checkWrite(key);
+        validationParameterWrites.put(collection + CompositeKey.NAMESPACE + key, value);
+    }
+
+    @Override
+    public void delPrivateData(final String collection, final String key) {
+        checkWrite(key);
+        ledger.roundTrip();
+        privateDataWrites.computeIfAbsent(collection, c -> new TreeMap<>(InMemoryLedger.KEY_ORDER)).put(key, null);
+    }
+
+    @Override
+    public void purgePrivateData(final String collection, final String key) {
+        delPrivateData(collection, key);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByRange(final String collection,
+                                                                final String startKey, final String endKey) {
+        CompositeKey.validateSimpleKeys(startKey, endKey);
+        String start = simpleStart(startKey);
+        NavigableMap<String, byte[]> data = endKey == null || endKey.isEmpty()
+                ? ledger.collection(collection).tailMap(start, true)
+                : ledger.collection(collection).subMap(start, true, endKey, false);
+        return privateRange(data);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByPartialCompositeKey(final String collection,
+                                                                              final String compositeKey) {
+        return getPrivateDataByPartialCompositeKey(collection, partialKey(compositeKey));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByPartialCompositeKey(final String collection,
+                                                                              final CompositeKey compositeKey) {
+        String prefix = compositeKey.toString();
+        return privateRange(ledger.collection(collection).subMap(prefix, true, prefix + MAX_UNICODE_RUNE, false));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByPartialCompositeKey(final String collection,
+                                                                              final String objectType,
+                                                                              final String... attributes) {
+        return getPrivateDataByPartialCompositeKey(collection, new CompositeKey(objectType, attributes));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataQueryResult(final String collection, final String query) {
+        throw new UnsupportedOperationException("Rich queries need CouchDB");
+    }
+
+    // Events
+
+    @Override
+    public void setEvent(final String name, final byte[] payload) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("event name can not be nil string");
+        }
+        event = ChaincodeEvent.newBuilder()
+                .setEventName(name)
+                .setTxId(txId)
+                .setPayload(ByteString.copyFrom(payload == null ? new byte[0] : payload))
+                .build();
+    }
+
+    @Override
+    public ChaincodeEvent getEvent() {
+        return event;
+    }
+
+    // Helpers
+
+    private void checkWrite(final String key) {
+        if (key == null || key.isEmpty()) {
+            throw new IllegalArgumentException("key must not be null or empty");
+        }
+        if (paginatedQueryPerformed) {
+            throw new UnsupportedOperationException("Writes are not allowed in a transaction that ran a paginated query");
+        }
+    }
+
+    private QueryResultsIterator<KeyValue> range(final String startKey, final String endKey) {
+        ledger.roundTrip();
+        rangeQueries++;
+        RangeRead read = new RangeRead(startKey, endKey);
+        rangeReads.add(read);
+        Iterator<Map.Entry<String, byte[]>> entries = ledger.scan(startKey, endKey, snapshot);
+        return iterator(new Iterator<KeyValue>() {
+            @Override
+            public boolean hasNext() {
+                boolean more = entries.hasNext();
+                if (!more) {
+                    read.exhausted = true;
+                }
+                return more;
+            }
+
+            @Override
+            public KeyValue next() {
+                Map.Entry<String, byte[]> entry = entries.next();
+                read.keys.add(entry.getKey());
+                read.versions.add(ledger.readSequence(entry.getKey(), snapshot));
+                return keyValue(entry.getKey(), entry.getValue());
+            }
+        });
+    }
+
+    /**
+     * One page of a range, keeping only the values a rich query's selector
+     * matches if it has one. The bookmark is the key the next page starts at.
+     */
+    private QueryResultsIteratorWithMetadata<KeyValue> page(final String startKey, final String endKey,
+                                                            final int pageSize, final String bookmark,
+                                                            final MangoSelector selector) {
+        if (!writeSet.isEmpty() || !validationParameterWrites.isEmpty() || !privateDataWrites.isEmpty()) {
+            throw new UnsupportedOperationException("Paginated queries are not allowed in a transaction that writes");
+        }
+        paginatedQueryPerformed = true;
+        ledger.roundTrip();
+        rangeQueries++;
+
+        String start = bookmark == null || bookmark.isEmpty() ? startKey : bookmark;
+        Iterator<Map.Entry<String, byte[]>> entries = ledger.scan(start, endKey, snapshot);
+        List<KeyValue> results = new ArrayList<>(Math.min(pageSize, 1024));
+        String nextBookmark = "";
+        while (entries.hasNext()) {
+            Map.Entry<String, byte[]> entry = entries.next();
+            if (selector != null && !selector.matches(entry.getValue())) {
+                continue;
+            }
+            if (results.size() == pageSize) {
+                nextBookmark = entry.getKey();
+                break;
+            }
+            results.add(keyValue(entry.getKey(), entry.getValue()));
+        }
+
+        QueryResponseMetadata metadata = QueryResponseMetadata.newBuilder()
+                .setFetchedRecordsCount(results.size())
+                .setBookmark(nextBookmark)
+                .build();
+        Iterator<KeyValue> iterator = results.iterator();
+        return new QueryResultsIteratorWithMetadata<KeyValue>() {
+            @Override
+            public QueryResponseMetadata getMetadata() {
+                return metadata;
+            }
+
+            @Override
+            public Iterator<KeyValue> iterator() {
+                return iterator;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    private QueryResultsIterator<KeyValue> privateRange(final NavigableMap<String, byte[]> data) {
+        Iterator<Map.Entry<String, byte[]>> entries = data.entrySet().iterator();
+        return iterator(new Iterator<KeyValue>() {
+            @Override
+            public boolean hasNext() {
+                return entries.hasNext();
+            }
+
+            @Override
+            public KeyValue next() {
+                Map.Entry<String, byte[]> entry = entries.next();
+                return keyValue(entry.getKey(), entry.getValue());
+            }
+        });
+    }
+
+    private KeyValue keyValue(final String key, final byte[] value) {
+        rangeRows++;
+        bytesRead += value.length;
+        return new KeyValue() {
+            @Override
+            public String getKey() {
+                return key;
+            }
+
+            @Override
+            public byte[] getValue() {
+                return value.clone();
+            }
+
+            @Override
+            public String getStringValue() {
+                return new String(value, StandardCharsets.UTF_8);
+            }
+        };
+    }
+
+    private static <T> QueryResultsIterator<T> iterator(final Iterator<T> iterator) {
+        return new QueryResultsIterator<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return iterator;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    private static CompositeKey partialKey(final String compositeKey) {
+        return compositeKey.startsWith(CompositeKey.NAMESPACE)
+                ? CompositeKey.parseCompositeKey(compositeKey)
+                : new CompositeKey(compositeKey);
+    }
+
+    private static String simpleStart(final String startKey) {
+        return startKey == null || startKey.isEmpty() ? SIMPLE_KEY_START : startKey;
+    }
+
+    private static String emptyToNull(final String key) {
+        return key == null || key.isEmpty() ? null : key;
+    }
+
+    private static void writeField(final ByteArrayOutputStream out, final int field, final byte[] bytes) {
+        out.write(field << 3 | 2);
+        int length = bytes.length;
+        while ((length & ~0x7F) != 0) {
+            out.write((length & 0x7F) | 0x80);
+            length >>>= 7;
+        }
+        out.write(length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static byte[] sha256(final byte[] value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
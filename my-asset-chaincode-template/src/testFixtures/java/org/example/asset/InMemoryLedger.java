@@ -0,0 +1,447 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.example.asset;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.contract.ContractInterface;
+import org.hyperledger.fabric.shim.ledger.KeyModification;
+
+/**
+ * In-memory world state for running the contracts without a Fabric network.
+ *
+ * Behaves like a peer's state database for the things the contracts rely on:
+ *
+ * <ul>
+ * <li>keys are ordered by code point, which is the byte order of their
+ * UTF-8 encoding used by LevelDB and CouchDB;</li>
+ * <li>every transaction simulates against the state committed when it
+ * started and does not see its own writes;</li>
+ * <li>commits run MVCC validation: a point read of a key that has changed
+ * since fails with {@link ValidationCode#MVCC_READ_CONFLICT}, a range scan
+ * whose results would now differ with {@link ValidationCode#PHANTOM_READ_CONFLICT};</li>
+ * <li>every committed write and delete is kept as key history, newest first.</li>
+ * </ul>
+ *
+ * Commits are serialized, as if each transaction were a block of its own.
+ * Simulation is lock free, so any number of threads can run transactions
+ * against one ledger. A peer round trip can be simulated with
+ * {@link #withPeerLatency}: each state call then parks the calling thread,
+ * as the shim does while it waits for the peer's response. Private data is kept per collection without
+ * versioning. Rich (CouchDB) queries scan the whole state with the selector
+ * subset {@link MangoSelector} supports, and are not supported on private data.
+ */
+public final class InMemoryLedger {
+
+    /**
+     * Fabric's transaction validation codes for the checks done here.
+     */
+    public enum ValidationCode {
+        VALID,
+        MVCC_READ_CONFLICT,
+        PHANTOM_READ_CONFLICT
+    }
+
+    /**
+     * Thrown by {@link #submit} when a transaction fails validation.
+     */
+    public static final class InvalidTransactionException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final ValidationCode code;
+
+        InvalidTransactionException(final String txId, final ValidationCode code) {
+            super("Transaction " + txId + " invalidated: " + code);
+            this.code = code;
+        }
+
+        public ValidationCode getCode() {
+            return code;
+        }
+    }
+
+    /**
+     * Key order of the state database: code point order, which unlike
+     * {@link String#compareTo} matches the UTF-8 byte order of the keys.
+     */
+    static final Comparator<String> KEY_ORDER = (a, b) -> {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            int ca = a.codePointAt(i);
+            int cb = b.codePointAt(j);
+            if (ca != cb) {
+                return Integer.compare(ca, cb);
+            }
+            i += Character.charCount(ca);
+            j += Character.charCount(cb);
+        }
+        return Integer.compare(a.length() - i, b.length() - j);
+    };
+
+    /**
+     * One committed version of a key, linked to the one it replaced.
+     */
+    static final class Version implements KeyModification {
+        private final byte[] value;
+        private final long sequence;
+        private final String txId;
+        private final Instant timestamp;
+        private final Version previous;
+
+        Version(final byte[] value, final long sequence, final String txId, final Instant timestamp,
+                final Version previous) {
+            this.value = value;
+            this.sequence = sequence;
+            this.txId = txId;
+            this.timestamp = timestamp;
+            this.previous = previous;
+        }
+
+        long getSequence() {
+            return sequence;
+        }
+
+        Version getPrevious() {
+            return previous;
+        }
+
+        @Override
+        public String getTxId() {
+            return txId;
+        }
+
+        @Override
+        public byte[] getValue() {
+            return value == null ? new byte[0] : value.clone();
+        }
+
+        @Override
+        public String getStringValue() {
+            return value == null ? "" : new String(value, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public Instant getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public boolean isDeleted() {
+            return value == null;
+        }
+
+        byte[] value() {
+            return value;
+        }
+    }
+
+    private static final String DEFAULT_MSP_ID = "Org1MSP";
+    private static final byte[] DEFAULT_CERTIFICATE = loadResource("client-cert.pem");
+
+    private final ConcurrentSkipListMap<String, Version> state = new ConcurrentSkipListMap<>(KEY_ORDER);
+    private final Map<String, ConcurrentSkipListMap<String, byte[]>> privateData = new ConcurrentHashMap<>();
+    private final Map<String, byte[]> validationParameters = new ConcurrentHashMap<>();
+    private final AtomicLong txCounter = new AtomicLong();
+    // Not a monitor, so waiting virtual threads do not pin their carrier
+    private final ReentrantLock commitLock = new ReentrantLock();
+    private final String channelId;
+    private volatile long committedSequence;
+    private volatile String mspId = DEFAULT_MSP_ID;
+    private volatile byte[] certificate = DEFAULT_CERTIFICATE;
+    private volatile long peerLatencyNanos;
+
+    public InMemoryLedger() {
+        this("mychannel");
+    }
+
+    public InMemoryLedger(final String channelId) {
+        this.channelId = channelId;
+    }
+
+    /**
+     * Set the identity that submits the following transactions. The
+     * certificate defaults to a test client certificate of Org1.
+     */
+    public InMemoryLedger withClient(final String clientMspId, final byte[] pemCertificate) {
+        this.mspId = clientMspId;
+        this.certificate = pemCertificate == null ? DEFAULT_CERTIFICATE : pemCertificate.clone();
+        return this;
+    }
+
+    public InMemoryLedger withClient(final String clientMspId) {
+        return withClient(clientMspId, null);
+    }
+
+    /**
+     * Delay every state call of the following transactions by a simulated
+     * chaincode-to-peer round trip. Zero, the default, turns it off.
+     */
+    public InMemoryLedger withPeerLatency(final Duration latency) {
+        this.peerLatencyNanos = latency.toNanos();
+        return this;
+    }
+
+    /**
+     * Start simulating a transaction against the current committed state.
+     */
+    public InMemoryChaincodeStub newTransaction(final String function, final String... args) {
+        long number = txCounter.incrementAndGet();
+        String txId = String.format("%064x", number);
+        return new InMemoryChaincodeStub(this, txId, committedSequence, function, args, mspId, certificate);
+    }
+
+    /**
+     * Run a contract function as a submitted transaction: simulate it with
+     * the contract's context and hooks, then validate and commit it.
+     *
+     * @throws InvalidTransactionException if the transaction fails validation
+     */
+    public <R> R submit(final ContractInterface contract, final String function,
+                        final Function<Context, R> call) {
+        InMemoryChaincodeStub stub = newTransaction(function);
+        R result = simulate(contract, stub, call);
+        ValidationCode code = commit(stub);
+        if (code != ValidationCode.VALID) {
+            throw new InvalidTransactionException(stub.getTxId(), code);
+        }
+        return result;
+    }
+
+    /**
+     * Run a contract function as an evaluated transaction; nothing is committed.
+     */
+    public <R> R evaluate(final ContractInterface contract, final String function,
+                          final Function<Context, R> call) {
+        return simulate(contract, newTransaction(function), call);
+    }
+
+    private static <R> R simulate(final ContractInterface contract, final InMemoryChaincodeStub stub,
+                                  final Function<Context, R> call) {
+        Context ctx = contract.createContext(stub);
+        contract.beforeTransaction(ctx);
+        R result = call.apply(ctx);
+        contract.afterTransaction(ctx, result);
+        return result;
+    }
+
+    /**
+     * Validate a simulated transaction against the state committed since it
+     * started and, if it is valid, apply its writes.
+     */
+    public ValidationCode commit(final InMemoryChaincodeStub tx) {
+        commitLock.lock();
+        try {
+            return validateAndApply(tx);
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    private ValidationCode validateAndApply(final InMemoryChaincodeStub tx) {
+        for (Map.Entry<String, Long> read : tx.readSet().entrySet()) {
+            if (latestSequence(read.getKey()) != read.getValue()) {
+                return ValidationCode.MVCC_READ_CONFLICT;
+            }
+        }
+        for (InMemoryChaincodeStub.RangeRead range : tx.rangeReads()) {
+            if (!range.matches(this)) {
+                return ValidationCode.PHANTOM_READ_CONFLICT;
+            }
+        }
+
+        long sequence = committedSequence + 1;
+        for (Map.Entry<String, byte[]> write : tx.writeSet().entrySet()) {
+            Version previous = state.get(write.getKey());
+            state.put(write.getKey(), new Version(write.getValue(), sequence, tx.getTxId(), tx.getTxTimestamp(), previous));
+        }
+        for (Map.Entry<String, byte[]> parameter : tx.validationParameterWrites().entrySet()) {
+            validationParameters.put(parameter.getKey(), parameter.getValue());
+        }
+        for (Map.Entry<String, NavigableMap<String, byte[]>> collection : tx.privateDataWrites().entrySet()) {
+            ConcurrentSkipListMap<String, byte[]> data = collection(collection.getKey());
+            for (Map.Entry<String, byte[]> write : collection.getValue().entrySet()) {
+                if (write.getValue() == null) {
+                    data.remove(write.getKey());
+                } else {
+                    data.put(write.getKey(), write.getValue());
+                }
+            }
+        }
+        committedSequence = sequence;
+        return ValidationCode.VALID;
+    }
+
+    /**
+     * Write a value straight into committed state, without a transaction.
+     * For seeding large ledgers quickly; seeded keys have no history.
+     */
+    public void load(final String key, final byte[] value) {
+        state.put(key, new Version(value.clone(), 0, "", Instant.EPOCH, null));
+    }
+
+    /**
+     * The committed value of a key, or null.
+     */
+    public byte[] getState(final String key) {
+        byte[] value = read(key, committedSequence);
+        return value == null ? null : value.clone();
+    }
+
+    /**
+     * Number of keys with a committed value.
+     */
+    public int size() {
+        int count = 0;
+        for (Version version : state.values()) {
+            if (version.value() != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    String getChannelId() {
+        return channelId;
+    }
+
+    /**
+     * Wait out the simulated peer round trip of one state call.
+     */
+    void roundTrip() {
+        long nanos = peerLatencyNanos;
+        if (nanos <= 0) {
+            return;
+        }
+        long deadline = System.nanoTime() + nanos;
+        for (long left = nanos; left > 0 && !Thread.currentThread().isInterrupted();
+                left = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(left);
+        }
+    }
+
+    /**
+     * Value of a key as of a commit sequence, or null if absent then.
+     */
+    byte[] read(final String key, final long sequence) {
+        Version version = visible(state.get(key), sequence);
+        return version == null ? null : version.value();
+    }
+
+    /**
+     * Version number of a key as seen at a sequence, for MVCC checks:
+     * 0 if the key has no value (never written or deleted), otherwise one
+     * more than the sequence that committed the value.
+     */
+    long readSequence(final String key, final long sequence) {
+        Version version = visible(state.get(key), sequence);
+        return version == null || version.value() == null ? 0 : version.getSequence() + 1;
+    }
+
+    private long latestSequence(final String key) {
+        return readSequence(key, Long.MAX_VALUE);
+    }
+
+    /**
+     * Keys with a value visible at a sequence, from {@code startKey} inclusive
+     * to {@code endKey} exclusive (null for no end), in key order.
+     */
+    Iterator<Map.Entry<String, byte[]>> scan(final String startKey, final String endKey, final long sequence) {
+        NavigableMap<String, Version> range = endKey == null
+                ? state.tailMap(startKey, true)
+                : state.subMap(startKey, true, endKey, false);
+        Iterator<Map.Entry<String, Version>> versions = range.entrySet().iterator();
+        return new Iterator<Map.Entry<String, byte[]>>() {
+            private Map.Entry<String, byte[]> next = advance();
+
+            private Map.Entry<String, byte[]> advance() {
+                while (versions.hasNext()) {
+                    Map.Entry<String, Version> entry = versions.next();
+                    Version version = visible(entry.getValue(), sequence);
+                    if (version != null && version.value() != null) {
+                        return Map.entry(entry.getKey(), version.value());
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Map.Entry<String, byte[]> next() {
+                Map.Entry<String, byte[]> current = next;
+                next = advance();
+                return current;
+            }
+        };
+    }
+
+    /**
+     * History of a key as of a sequence, newest first.
+     */
+    List<KeyModification> history(final String key, final long sequence) {
+        List<KeyModification> history = new ArrayList<>();
+        for (Version version = visible(state.get(key), sequence); version != null; version = version.getPrevious()) {
+            if (version.getSequence() > 0) {
+                history.add(version);
+            }
+        }
+        return history;
+    }
+
+    byte[] getValidationParameter(final String key) {
+        return validationParameters.get(key);
+    }
+
+    ConcurrentSkipListMap<String, byte[]> collection(final String name) {
+        return privateData.computeIfAbsent(name, c -> new ConcurrentSkipListMap<>(KEY_ORDER));
+    }
+
+    private static Version visible(final Version head, final long sequence) {
+        Version version = head;
+        while (version != null && version.getSequence() > sequence) {
+            version = version.getPrevious();
+        }
+        return version;
+    }
+
+    private static byte[] loadResource(final String name) {
+        try (InputStream in = InMemoryLedger.class.getResourceAsStream(name)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing test resource " + name);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.example.asset;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * The subset of CouchDB's Mango selectors the contracts' queries use, for
+ * running rich queries against an {@link InMemoryLedger}.
+ *
+ * Supports implicit equality, {@code $eq}, {@code $ne}, {@code $gt},
+ * {@code $gte}, {@code $lt}, {@code $lte}, {@code $exists} and {@code $in} on
+ * top-level and dotted fields, combined with {@code $and} and {@code $or}.
+ * Numbers compare by value and strings by code point; values of different
+ * types never match an ordering operator. Values that are not JSON objects,
+ * such as binary records, match nothing, as CouchDB stores them as attachments.
+ */
+final class MangoSelector {
+
+    private final JSONObject selector;
+
+    private MangoSelector(final JSONObject selector) {
+        this.selector = selector;
+    }
+
+    /**
+     * Parse the {@code selector} of a query; sort, fields and limit are ignored.
+     *
+     * @throws IllegalArgumentException if the query has no selector object
+     */
+    static MangoSelector parse(final String query) {
+        try {
+            return new MangoSelector(new JSONObject(query).getJSONObject("selector"));
+        } catch (JSONException e) {
+            throw new IllegalArgumentException("Query has no selector object: " + e.getMessage(), e);
+        }
+    }
+
+    boolean matches(final byte[] value) {
+        JSONObject document;
+        try {
+            document = new JSONObject(new String(value, StandardCharsets.UTF_8));
+        } catch (JSONException e) {
+            return false;
+        }
+        return matchesAll(selector, document);
+    }
+
+    private static boolean matchesAll(final JSONObject conditions, final JSONObject document) {
+        for (String name : conditions.keySet()) {
+            Object condition = conditions.get(name);
+            boolean matched;
+            if ("$and".equals(name)) {
+                matched = matchesEvery(combined(name, condition), document);
+            } else if ("$or".equals(name)) {
+                matched = matchesAny(combined(name, condition), document);
+            } else if (name.startsWith("$")) {
+                throw new IllegalArgumentException("Unsupported selector operator " + name);
+            } else {
+                matched = matchesField(field(document, name), condition);
+            }
+            if (!matched) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matchesEvery(final JSONArray selectors, final JSONObject document) {
+        for (int i = 0; i < selectors.length(); i++) {
+            if (!matchesAll(selectors.getJSONObject(i), document)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matchesAny(final JSONArray selectors, final JSONObject document) {
+        for (int i = 0; i < selectors.length(); i++) {
+            if (matchesAll(selectors.getJSONObject(i), document)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matchesField(final Object value, final Object condition) {
+        if (!(condition instanceof JSONObject) || !isOperators((JSONObject) condition)) {
+            return value != null && same(value, condition);
+        }
+        JSONObject operators = (JSONObject) condition;
+        for (String operator : operators.keySet()) {
+            Object operand = operators.get(operator);
+            if (!matchesOperator(value, operator, operand)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matchesOperator(final Object value, final String operator, final Object operand) {
+        switch (operator) {
+            case "$exists":
+                return (value != null) == Boolean.TRUE.equals(operand);
+            case "$eq":
+                return value != null && same(value, operand);
+            case "$ne":
+                return value == null || !same(value, operand);
+            case "$in":
+                JSONArray candidates = (JSONArray) operand;
+                for (int i = 0; value != null && i < candidates.length(); i++) {
+                    if (same(value, candidates.get(i))) {
+                        return true;
+                    }
+                }
+                return false;
+            case "$gt":
+                return compare(value, operand) > 0;
+            case "$gte":
+                return compare(value, operand) >= 0;
+            case "$lt":
+                return compare(value, operand) < 0;
+            case "$lte":
+                return compare(value, operand) <= 0;
+            default:
+                throw new IllegalArgumentException("Unsupported selector operator " + operator);
+        }
+    }
+
+    /**
+     * Order of two values of the same type; any mismatch compares as unordered,
+     * which no ordering operator accepts.
+     */
+    private static double compare(final Object value, final Object operand) {
+        if (value instanceof Number && operand instanceof Number) {
+            return Double.compare(((Number) value).doubleValue(), ((Number) operand).doubleValue());
+        }
+        if (value instanceof String && operand instanceof String) {
+            return InMemoryLedger.KEY_ORDER.compare((String) value, (String) operand);
+        }
+        return Double.NaN;
+    }
+
+    private static boolean same(final Object value, final Object operand) {
+        if (value instanceof Number && operand instanceof Number) {
+            return ((Number) value).doubleValue() == ((Number) operand).doubleValue();
+        }
+        return value.equals(operand);
+    }
+
+    private static boolean isOperators(final JSONObject condition) {
+        Iterator<String> names = condition.keySet().iterator();
+        return names.hasNext() && names.next().startsWith("$");
+    }
+
+    private static JSONArray combined(final String operator, final Object selectors) {
+        if (!(selectors instanceof JSONArray)) {
+            throw new IllegalArgumentException(operator + " needs an array of selectors");
+        }
+        return (JSONArray) selectors;
+    }
+
+    /**
+     * Value of a possibly dotted field, or null if the document has none.
+     */
+    private static Object field(final JSONObject document, final String name) {
+        Object value = document;
+        for (String part : name.split("\\.")) {
+            if (!(value instanceof JSONObject) || !((JSONObject) value).has(part)) {
+                return null;
+            }
+            value = ((JSONObject) value).get(part);
+        }
+        return value == JSONObject.NULL ? null : value;
+    }
+}